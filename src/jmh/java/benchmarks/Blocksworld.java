@@ -0,0 +1,75 @@
+package benchmarks;
+
+import com.google.common.collect.ImmutableSet;
+import knowledge.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deterministic blocksworld problems for the benchmarks: every block starts on the table and the goals build a
+ * single tower b1 <- b2 <- ... one block per goal
+ */
+public final class Blocksworld {
+    private Blocksworld() {
+    }
+
+    public static Problem problem(int blocks) {
+        List<String> names = names(blocks);
+        Set<Fact> initialState = new LinkedHashSet<>();
+        initialState.add(Fact.parse("handempty"));
+        for (String block : names) {
+            initialState.add(Fact.parse("ontable " + block));
+            initialState.add(Fact.parse("clear " + block));
+        }
+        return Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("putdown X: holding X -> ontable X, handempty, clear X, not holding X"),
+                        Action.parse("pickup X: ontable X, clear X, handempty -> holding X, " +
+                                "not ontable X, not clear X, not handempty"),
+                        Action.parse("stack X Y: holding X, clear Y -> handempty, on X Y, clear X, " +
+                                "not holding X, not clear Y"),
+                        Action.parse("unstack X: on X Y, clear X, handempty -> holding X, clear Y, " +
+                                "not handempty, not clear X, not on X Y")))
+                .setConstraints(ImmutableSet.of(
+                        Constraint.parse("holding X -> not holding Y"),
+                        Constraint.parse("on X Y -> not on X Z"),
+                        Constraint.parse("on X Y -> not on Z Y")))
+                .setTypes(ImmutableSet.of(TypeDeclaration.parse("X, Y, Z: " + String.join(", ", names))))
+                .setInitialState(State.builder().setState(initialState).build())
+                .build();
+    }
+
+    /**
+     * The first goals of the tower, at most blocks - 1
+     */
+    public static Set<Fact> goals(int blocks, int goals) {
+        Set<Fact> tower = new LinkedHashSet<>();
+        for (int i = 1; i <= goals && i < blocks; i++) {
+            tower.add(Fact.parse("on b" + (i + 1) + " b" + i));
+        }
+        return tower;
+    }
+
+    /**
+     * Same problem as the given one, without anything computed on it (symbols, grounding) yet
+     */
+    public static Problem copy(Problem problem) {
+        return Problem.builder()
+                .setActions(problem.getActions())
+                .setConstraints(problem.getConstraints())
+                .setTypes(problem.getTypes())
+                .setInitialState(problem.getInitialState())
+                .build();
+    }
+
+    private static List<String> names(int blocks) {
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= blocks; i++) {
+            names.add("b" + i);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,48 @@
+package knowledge;
+
+import benchmarks.Blocksworld;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class GroundingBenchmark {
+    @Param({"4", "8", "16"})
+    public int objects;
+
+    private Problem problem;
+    private Problem fresh;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problem = Blocksworld.problem(objects);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshProblem() {
+        fresh = Blocksworld.copy(problem);
+    }
+
+    /**
+     * Cartesian product of the domains of the variables of a three variable schema (e.g. a constraint)
+     */
+    @Benchmark
+    public Set<Unification> instantiateVariables() {
+        return problem.instantiateVariables(ImmutableSet.of("X", "Y", "Z"));
+    }
+
+    /**
+     * Grounding of every action schema through relaxed reachability, interning included
+     */
+    @Benchmark
+    public GroundProblem groundProblem() {
+        return fresh.getGroundProblem();
+    }
+}
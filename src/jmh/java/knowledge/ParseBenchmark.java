@@ -0,0 +1,33 @@
+package knowledge;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class ParseBenchmark {
+    private String fact = "on s3 s5";
+    private String negatedFact = "not holding s4";
+    private String action = "unstack X: on X Y, clear X, handempty -> holding X, clear Y, " +
+            "not handempty, not clear X, not on X Y";
+
+    @Benchmark
+    public Fact parseFact() {
+        return Fact.parse(fact);
+    }
+
+    @Benchmark
+    public Fact parseNegatedFact() {
+        return Fact.parse(negatedFact);
+    }
+
+    @Benchmark
+    public Action parseAction() {
+        return Action.parse(action);
+    }
+}
@@ -0,0 +1,85 @@
+package planner.graphplan;
+
+import benchmarks.Blocksworld;
+import knowledge.Fact;
+import knowledge.GroundProblem;
+import knowledge.Problem;
+import org.openjdk.jmh.annotations.*;
+import planner.Plan;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GraphplanBenchmark {
+    private static final int MAX_DEPTH = 15;
+
+    @Param({"4", "6", "8"})
+    public int objects;
+
+    @Param({"1", "2"})
+    public int goals;
+
+    // Integer.MAX_VALUE keeps every mutex pass sequential, 0 sends all of them to the fork-join pool
+    @Param({"2147483647", "0"})
+    public int parallelismThreshold;
+
+    private Problem problem;
+    private Set<Fact> goal;
+    private GroundProblem groundProblem;
+    // Levels needed by the goal, the graph of extractPlan has all of them
+    private int planLevel;
+    private Graph fullGraph;
+    // Graph missing the last level of the plan, rebuilt for each extendByOneLevel call
+    private Graph partialGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problem = Blocksworld.problem(objects);
+        goal = Blocksworld.goals(objects, goals);
+        groundProblem = problem.getGroundProblem();
+        fullGraph = Graph.fromGroundProblem(groundProblem, parallelismThreshold);
+        planLevel = 1;
+        while (true) {
+            fullGraph.extendTo(planLevel);
+            if (fullGraph.extractPlan(goal, planLevel, new NogoodMemo()).isPresent()) {
+                break;
+            }
+            planLevel++;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void partialGraph() {
+        partialGraph = Graph.fromGroundProblem(groundProblem, parallelismThreshold);
+        partialGraph.extendTo(planLevel - 1);
+    }
+
+    /**
+     * Last level of the plan: expansion, adjacency index and both mutex passes
+     */
+    @Benchmark
+    public Graph extendByOneLevel() {
+        partialGraph.extendByOneLevel();
+        return partialGraph;
+    }
+
+    @Benchmark
+    public Optional<Plan> extractPlan() {
+        return fullGraph.extractPlan(goal, planLevel, new NogoodMemo());
+    }
+
+    /**
+     * Whole planning call on an already grounded problem
+     */
+    @Benchmark
+    public Optional<Plan> plan() {
+        return PlanningSession.open(problem, MAX_DEPTH, parallelismThreshold).plan(goal);
+    }
+}
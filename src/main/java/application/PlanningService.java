@@ -0,0 +1,99 @@
+package application;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import knowledge.Fact;
+import knowledge.Problem;
+import planner.CancellationToken;
+import planner.Planner;
+import planner.PlanningResult;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Plans requests from many callers at once on a fixed pool of threads, so at most that many plans are being
+ * searched at any time and the other requests wait in line.
+ * Problems are shared by fingerprint (see Problem.getFingerprint), so all the requests about the same problem go to
+ * the same instance even when its actions, types or constraints come in another order: it is grounded once, by the
+ * first request needing it, and its GroundProblem is then shared by every planner call. Looking a problem up only
+ * hashes it once, instead of comparing its whole content. The most recently used problems are kept.
+ */
+public final class PlanningService implements AutoCloseable {
+    public static final int DEFAULT_PROBLEM_CACHE_SIZE = 64;
+
+    private final Planner planner;
+    private final ExecutorService executor;
+    private final Cache<HashCode, Problem> problems;
+
+    private PlanningService(Planner planner, int threads, int problemCacheSize) {
+        this.planner = planner;
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("planning-service-%d")
+                .setDaemon(true)
+                .build());
+        this.problems = CacheBuilder.newBuilder().maximumSize(problemCacheSize).build();
+    }
+
+    /**
+     * Service planning with one thread per core
+     */
+    public static PlanningService create(Planner planner) {
+        return create(planner, Runtime.getRuntime().availableProcessors(), DEFAULT_PROBLEM_CACHE_SIZE);
+    }
+
+    public static PlanningService create(Planner planner, int threads, int problemCacheSize) {
+        return new PlanningService(planner, threads, problemCacheSize);
+    }
+
+    public CompletableFuture<PlanningResult> submit(Problem problem, Set<Fact> goals) {
+        return submit(problem, goals, CancellationToken.create());
+    }
+
+    /**
+     * The time limit counts from now, waiting in line included
+     */
+    public CompletableFuture<PlanningResult> submit(Problem problem, Set<Fact> goals, long timeout, TimeUnit unit) {
+        return submit(problem, goals, CancellationToken.withTimeout(timeout, unit));
+    }
+
+    /**
+     * Plans on the pool. Cancelling the returned future cancels the token, stopping the planner if it has started
+     */
+    public CompletableFuture<PlanningResult> submit(Problem problem, Set<Fact> goals, CancellationToken token) {
+        Problem shared = canonical(problem);
+        CompletableFuture<PlanningResult> result = CompletableFuture.supplyAsync(() -> planner.plan(goals, shared, token), executor);
+        result.whenComplete((plan, error) -> {
+            if (result.isCancelled()) {
+                token.cancel();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of distinct problems currently shared
+     */
+    public long problemCount() {
+        return problems.size();
+    }
+
+    /**
+     * Stops accepting requests, the ones already submitted still run
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Problem canonical(Problem problem) {
+        try {
+            return problems.get(problem.getFingerprint(), () -> problem);
+        } catch (ExecutionException e) {
+            // The loader only returns its argument
+            throw new IllegalStateException(e);
+        }
+    }
+}
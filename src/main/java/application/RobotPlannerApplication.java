@@ -1,7 +1,79 @@
 package application;
 
+import knowledge.Predicate;
+import knowledge.ProblemFile;
+import knowledge.ProblemParser;
+import knowledge.ProblemSyntaxException;
+import planner.CancellationToken;
+import planner.Planner;
+import planner.Planners;
+import planner.PlanningResult;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans the goals of a problem file (see ProblemParser) and prints the plan, one step per line.
+ * Usage: RobotPlannerApplication file [planner=graphplan|greedy|astar] [timeout=milliseconds]
+ * Exits with 1 if there is no plan and 2 if the arguments are wrong or the file can't be read.
+ */
 public class RobotPlannerApplication {
+    private static final String USAGE = "Usage: RobotPlannerApplication file [planner=graphplan|greedy|astar] [timeout=milliseconds]";
+
     public static void main(String[] args) {
-        // TODO: read file with problem spec and arguments and execute
+        if (args.length == 0) {
+            usage(null);
+        }
+        Planner planner = Planners.byName(Planners.GREEDY);
+        CancellationToken token = CancellationToken.none();
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            try {
+                if (option.length == 2 && option[0].equals("planner")) {
+                    planner = Planners.byName(option[1]);
+                } else if (option.length == 2 && option[0].equals("timeout")) {
+                    token = CancellationToken.withTimeout(Long.parseLong(option[1]), TimeUnit.MILLISECONDS);
+                } else {
+                    usage("Expected planner=... or timeout=..., got " + args[i]);
+                }
+            } catch (NumberFormatException e) {
+                usage("Expected a number of milliseconds, got " + args[i]);
+            } catch (IllegalArgumentException e) {
+                usage(e.getMessage());
+            }
+        }
+        ProblemFile file;
+        try {
+            file = ProblemParser.parse(Paths.get(args[0]));
+        } catch (ProblemSyntaxException e) {
+            System.err.println(args[0] + ":" + e.getMessage());
+            System.exit(2);
+            return;
+        } catch (IOException | InvalidPathException e) {
+            usage("Can't read " + args[0] + ": " + e);
+            return;
+        }
+        PlanningResult result = planner.plan(file.getGoals(), file.getProblem(), token);
+        if (!result.getPlan().isPresent()) {
+            System.err.println(result.getStatus() + " after " + TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos())
+                    + "ms, deepest level " + result.getDeepestLevel());
+            System.exit(1);
+        }
+        for (Predicate step : result.getPlan().get().getSequence()) {
+            System.out.println(step);
+        }
+    }
+
+    /**
+     * Prints the message if there is one and the usage, then exits with 2
+     */
+    private static void usage(String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
     }
 }
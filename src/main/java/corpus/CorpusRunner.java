@@ -0,0 +1,152 @@
+package corpus;
+
+import knowledge.GroundProblem;
+import planner.Plan;
+import planner.Planner;
+import planner.Planners;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Solves a corpus of generated problems with a planner and reports, for each problem, whether it was solved,
+ * the plan length, the size of the grounded problem, the wall time (grounding included) and the peak heap.
+ * Reports are CSV files, a new report can be checked against a stored baseline:
+ * <pre>
+ * java corpus.CorpusRunner planner=greedy domains=blocksworld,gripper sizes=10,20 seeds=1,2
+ *     report=corpus.csv baseline=baseline.csv
+ * </pre>
+ * exits with status 1 if any problem got worse than in the baseline.
+ */
+public final class CorpusRunner {
+    // Wall time differences below this are noise, whatever the relative slowdown
+    private static final double MIN_SLOWDOWN_MILLIS = 5;
+
+    private final Planner planner;
+
+    public CorpusRunner(Planner planner) {
+        this.planner = planner;
+    }
+
+    public static List<GeneratedProblem> corpus(List<String> domains, List<Integer> sizes, List<Long> seeds) {
+        List<GeneratedProblem> corpus = new ArrayList<>();
+        for (String domain : domains) {
+            for (int size : sizes) {
+                for (long seed : seeds) {
+                    corpus.add(Domains.generate(domain, size, seed));
+                }
+            }
+        }
+        return corpus;
+    }
+
+    public List<RunResult> run(List<GeneratedProblem> corpus) {
+        return corpus.stream().map(this::run).collect(Collectors.toList());
+    }
+
+    public RunResult run(GeneratedProblem problem) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        Optional<Plan> plan = planner.plan(problem.getGoals(), problem.getProblem());
+        double wallMillis = (System.nanoTime() - start) / 1e6;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        GroundProblem groundProblem = problem.getProblem().getGroundProblem();
+        return RunResult.builder()
+                .setProblem(problem.getName())
+                .setSolved(plan.isPresent())
+                .setPlanLength(plan.map(p -> p.getSequence().size()).orElse(-1))
+                .setGroundActions(groundProblem.getActions().size())
+                .setGroundFacts(groundProblem.getSymbols().size())
+                .setWallMillis(wallMillis)
+                .setPeakHeapBytes(peakHeap)
+                .build();
+    }
+
+    public static void write(List<RunResult> results, Path report) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(RunResult.HEADER);
+        results.forEach(result -> lines.add(result.toCsv()));
+        Files.write(report, lines, StandardCharsets.UTF_8);
+    }
+
+    public static List<RunResult> read(Path report) throws IOException {
+        return Files.readAllLines(report, StandardCharsets.UTF_8).stream()
+                .skip(1)
+                .filter(line -> !line.trim().isEmpty())
+                .map(RunResult::parseCsv)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Problems of the baseline that are missing, no longer solved, solved with a longer plan or solved more than
+     * maxSlowdown (e.g. 0.5 for 50%) slower in the current results, one description each
+     */
+    public static List<String> regressions(List<RunResult> baseline, List<RunResult> current, double maxSlowdown) {
+        Map<String, RunResult> byProblem = current.stream()
+                .collect(Collectors.toMap(RunResult::getProblem, Function.identity(), (a, b) -> b));
+        List<String> regressions = new ArrayList<>();
+        for (RunResult before : baseline) {
+            RunResult after = byProblem.get(before.getProblem());
+            if (after == null) {
+                regressions.add(before.getProblem() + ": missing");
+            } else if (before.isSolved() && !after.isSolved()) {
+                regressions.add(before.getProblem() + ": no longer solved");
+            } else if (before.isSolved() && after.getPlanLength() > before.getPlanLength()) {
+                regressions.add(before.getProblem() + ": plan length " + before.getPlanLength() + " -> " + after.getPlanLength());
+            } else if (after.getWallMillis() > before.getWallMillis() * (1 + maxSlowdown)
+                    && after.getWallMillis() - before.getWallMillis() > MIN_SLOWDOWN_MILLIS) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.1fms -> %.1fms", before.getProblem(),
+                        before.getWallMillis(), after.getWallMillis()));
+            }
+        }
+        return regressions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        List<GeneratedProblem> corpus = corpus(
+                list(options.getOrDefault("domains", Domains.BLOCKSWORLD + "," + Domains.GRIPPER + "," + Domains.LOGISTICS), s -> s),
+                list(options.getOrDefault("sizes", "4,8"), Integer::parseInt),
+                list(options.getOrDefault("seeds", "1,2,3"), Long::parseLong));
+        List<RunResult> results = new ArrayList<>();
+        CorpusRunner runner = new CorpusRunner(Planners.byName(options.getOrDefault("planner", Planners.GREEDY)));
+        for (GeneratedProblem problem : corpus) {
+            RunResult result = runner.run(problem);
+            System.out.println(result.toCsv());
+            results.add(result);
+        }
+        write(results, Paths.get(options.getOrDefault("report", "corpus.csv")));
+        if (options.containsKey("baseline")) {
+            List<String> regressions = regressions(read(Paths.get(options.get("baseline"))), results,
+                    Double.parseDouble(options.getOrDefault("slowdown", "0.5")));
+            regressions.forEach(System.out::println);
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static <T> List<T> list(String values, Function<String, T> parse) {
+        return Arrays.stream(values.split(",")).map(String::trim).map(parse).collect(Collectors.toList());
+    }
+}
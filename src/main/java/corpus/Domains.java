@@ -0,0 +1,199 @@
+package corpus;
+
+import com.google.common.collect.ImmutableSet;
+import knowledge.*;
+
+import java.util.*;
+
+/**
+ * Random problems of a few classic domains at any size. The same domain, size and seed always give the same problem.
+ */
+public final class Domains {
+    public static final String BLOCKSWORLD = "blocksworld";
+    public static final String GRIPPER = "gripper";
+    public static final String LOGISTICS = "logistics";
+
+    private Domains() {
+    }
+
+    public static GeneratedProblem generate(String domain, int objects, long seed) {
+        switch (domain) {
+            case BLOCKSWORLD:
+                return blocksworld(objects, seed);
+            case GRIPPER:
+                return gripper(objects, seed);
+            case LOGISTICS:
+                return logistics(objects, seed);
+            default:
+                throw new IllegalArgumentException("Unknown domain " + domain);
+        }
+    }
+
+    /**
+     * Blocks stacked in random towers, to be rearranged in other random towers.
+     * Same schemas and constraints as the planner tests
+     */
+    public static GeneratedProblem blocksworld(int blocks, long seed) {
+        Random random = new Random(seed);
+        List<String> names = names("b", blocks);
+        Set<Fact> initialState = new LinkedHashSet<>();
+        initialState.add(Fact.parse("handempty"));
+        for (List<String> tower : towers(names, random)) {
+            initialState.add(Fact.parse("ontable " + tower.get(0)));
+            for (int i = 1; i < tower.size(); i++) {
+                initialState.add(Fact.parse("on " + tower.get(i) + " " + tower.get(i - 1)));
+            }
+            initialState.add(Fact.parse("clear " + tower.get(tower.size() - 1)));
+        }
+        Set<Fact> goals = new LinkedHashSet<>();
+        for (List<String> tower : towers(names, random)) {
+            for (int i = 1; i < tower.size(); i++) {
+                goals.add(Fact.parse("on " + tower.get(i) + " " + tower.get(i - 1)));
+            }
+        }
+        if (goals.isEmpty()) {
+            goals.add(Fact.parse("ontable " + names.get(0)));
+        }
+        Problem problem = Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("putdown X: holding X -> ontable X, handempty, clear X," +
+                                "not holding X"),
+                        Action.parse("pickup X: ontable X, clear X, handempty -> holding X, " +
+                                "not ontable X, not clear X, not handempty X"),
+                        Action.parse("stack X Y: holding X, clear Y -> handempty, on X Y, clear X, " +
+                                "not holding X, not clear Y"),
+                        Action.parse("unstack X: on X Y, clear X, handempty -> holding X, clear Y, " +
+                                "not handempty, not clear X, not on X Y")))
+                .setConstraints(ImmutableSet.of(
+                        Constraint.parse("holding X -> not holding Y"),
+                        Constraint.parse("on X Y -> not on X Z"),
+                        Constraint.parse("on X Y -> not on Z Y")))
+                .setTypes(ImmutableSet.of(TypeDeclaration.parse("X, Y, Z: " + String.join(", ", names))))
+                .setInitialState(State.builder().setState(initialState).build())
+                .build();
+        return generated(BLOCKSWORLD, blocks, seed, problem, goals);
+    }
+
+    /**
+     * A robot with two grippers moving balls between two rooms, each ball has to end up in the room
+     * where it doesn't start
+     */
+    public static GeneratedProblem gripper(int balls, long seed) {
+        Random random = new Random(seed);
+        List<String> names = names("ball", balls);
+        List<String> rooms = names("room", 2);
+        Set<Fact> initialState = new LinkedHashSet<>();
+        initialState.add(Fact.parse("robotat " + rooms.get(random.nextInt(2))));
+        initialState.add(Fact.parse("free left"));
+        initialState.add(Fact.parse("free right"));
+        Set<Fact> goals = new LinkedHashSet<>();
+        for (String ball : names) {
+            int room = random.nextInt(2);
+            initialState.add(Fact.parse("at " + ball + " " + rooms.get(room)));
+            goals.add(Fact.parse("at " + ball + " " + rooms.get(1 - room)));
+        }
+        Problem problem = Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("move R S: robotat R -> robotat S, not robotat R"),
+                        Action.parse("pick B R G: at B R, robotat R, free G -> carry B G, not at B R, not free G"),
+                        Action.parse("drop B R G: carry B G, robotat R -> at B R, free G, not carry B G")))
+                .setConstraints(ImmutableSet.of())
+                .setTypes(ImmutableSet.of(
+                        TypeDeclaration.parse("R, S: " + String.join(", ", rooms)),
+                        TypeDeclaration.parse("B: " + String.join(", ", names)),
+                        TypeDeclaration.parse("G: left, right")))
+                .setInitialState(State.builder().setState(initialState).build())
+                .build();
+        return generated(GRIPPER, balls, seed, problem, goals);
+    }
+
+    /**
+     * Packages moved between cities, with a truck in each city and one airplane flying between the airports.
+     * There is a city every four packages (at least two), each with an airport and another location
+     */
+    public static GeneratedProblem logistics(int packages, long seed) {
+        Random random = new Random(seed);
+        int cityCount = Math.max(2, packages / 4);
+        List<String> packageNames = names("pkg", packages);
+        List<String> cities = names("city", cityCount);
+        List<String> trucks = names("truck", cityCount);
+        List<String> locations = new ArrayList<>();
+        Set<Fact> initialState = new LinkedHashSet<>();
+        initialState.add(Fact.parse("at plane " + airport(0)));
+        for (int city = 0; city < cityCount; city++) {
+            locations.add(airport(city));
+            locations.add(depot(city));
+            initialState.add(Fact.parse("airport " + airport(city)));
+            initialState.add(Fact.parse("incity " + airport(city) + " " + cities.get(city)));
+            initialState.add(Fact.parse("incity " + depot(city) + " " + cities.get(city)));
+            initialState.add(Fact.parse("at " + trucks.get(city) + " " + (random.nextBoolean() ? airport(city) : depot(city))));
+        }
+        Set<Fact> goals = new LinkedHashSet<>();
+        for (String pkg : packageNames) {
+            int from = random.nextInt(locations.size());
+            int to = (from + 1 + random.nextInt(locations.size() - 1)) % locations.size();
+            initialState.add(Fact.parse("at " + pkg + " " + locations.get(from)));
+            goals.add(Fact.parse("at " + pkg + " " + locations.get(to)));
+        }
+        Problem problem = Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("loadtruck P T L: at P L, at T L -> in P T, not at P L"),
+                        Action.parse("unloadtruck P T L: in P T, at T L -> at P L, not in P T"),
+                        Action.parse("drivetruck T L M C: at T L, incity L C, incity M C -> at T M, not at T L"),
+                        Action.parse("loadplane P A L: at P L, at A L -> in P A, not at P L"),
+                        Action.parse("unloadplane P A L: in P A, at A L -> at P L, not in P A"),
+                        Action.parse("fly A L M: at A L, airport L, airport M -> at A M, not at A L")))
+                .setConstraints(ImmutableSet.of())
+                .setTypes(ImmutableSet.of(
+                        TypeDeclaration.parse("P: " + String.join(", ", packageNames)),
+                        TypeDeclaration.parse("T: " + String.join(", ", trucks)),
+                        TypeDeclaration.parse("A: plane"),
+                        TypeDeclaration.parse("L, M: " + String.join(", ", locations)),
+                        TypeDeclaration.parse("C: " + String.join(", ", cities))))
+                .setInitialState(State.builder().setState(initialState).build())
+                .build();
+        return generated(LOGISTICS, packages, seed, problem, goals);
+    }
+
+    private static GeneratedProblem generated(String domain, int objects, long seed, Problem problem, Set<Fact> goals) {
+        return GeneratedProblem.builder()
+                .setDomain(domain)
+                .setObjects(objects)
+                .setSeed(seed)
+                .setProblem(problem)
+                .setGoals(goals)
+                .build();
+    }
+
+    /**
+     * The names in random order, cut in towers of random height
+     */
+    private static List<List<String>> towers(List<String> names, Random random) {
+        List<String> shuffled = new ArrayList<>(names);
+        Collections.shuffle(shuffled, random);
+        List<List<String>> towers = new ArrayList<>();
+        int start = 0;
+        while (start < shuffled.size()) {
+            int height = 1 + random.nextInt(Math.min(shuffled.size() - start, 5));
+            towers.add(shuffled.subList(start, start + height));
+            start += height;
+        }
+        return towers;
+    }
+
+    private static String airport(int city) {
+        return "airport" + city;
+    }
+
+    private static String depot(int city) {
+        return "depot" + city;
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(prefix + i);
+        }
+        return names;
+    }
+}
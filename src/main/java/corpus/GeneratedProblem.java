@@ -0,0 +1,53 @@
+package corpus;
+
+import com.google.auto.value.AutoValue;
+import knowledge.Fact;
+import knowledge.Problem;
+
+import java.util.Set;
+
+/**
+ * Problem built by {@link Domains}, with the parameters needed to build it again
+ */
+@AutoValue
+public abstract class GeneratedProblem {
+    public abstract String getDomain();
+
+    // Blocks, balls or packages
+    public abstract int getObjects();
+
+    public abstract long getSeed();
+
+    public abstract Problem getProblem();
+
+    public abstract Set<Fact> getGoals();
+
+    public static Builder builder() {
+        return new AutoValue_GeneratedProblem.Builder();
+    }
+
+    public String getName() {
+        return getDomain() + "-" + getObjects() + "-" + getSeed();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+
+        public abstract Builder setDomain(String newDomain);
+
+        public abstract Builder setObjects(int newObjects);
+
+        public abstract Builder setSeed(long newSeed);
+
+        public abstract Builder setProblem(Problem newProblem);
+
+        public abstract Builder setGoals(Set<Fact> newGoals);
+
+        public abstract GeneratedProblem build();
+    }
+}
@@ -0,0 +1,76 @@
+package corpus;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Outcome of solving one generated problem, see {@link CorpusRunner}
+ */
+@AutoValue
+public abstract class RunResult {
+    static final String HEADER = "problem,solved,planLength,groundActions,groundFacts,wallMillis,peakHeapBytes";
+
+    public abstract String getProblem();
+
+    public abstract boolean isSolved();
+
+    // -1 when not solved
+    public abstract int getPlanLength();
+
+    public abstract int getGroundActions();
+
+    public abstract int getGroundFacts();
+
+    public abstract double getWallMillis();
+
+    public abstract long getPeakHeapBytes();
+
+    public static Builder builder() {
+        return new AutoValue_RunResult.Builder();
+    }
+
+    String toCsv() {
+        return String.join(",", getProblem(), Boolean.toString(isSolved()), Integer.toString(getPlanLength()),
+                Integer.toString(getGroundActions()), Integer.toString(getGroundFacts()),
+                String.format(Locale.ROOT, "%.3f", getWallMillis()), Long.toString(getPeakHeapBytes()));
+    }
+
+    static RunResult parseCsv(String line) {
+        List<String> fields = Arrays.asList(line.split(","));
+        if (fields.size() != HEADER.split(",").length) {
+            throw new IllegalArgumentException("Not a result line: " + line);
+        }
+        return builder()
+                .setProblem(fields.get(0))
+                .setSolved(Boolean.parseBoolean(fields.get(1)))
+                .setPlanLength(Integer.parseInt(fields.get(2)))
+                .setGroundActions(Integer.parseInt(fields.get(3)))
+                .setGroundFacts(Integer.parseInt(fields.get(4)))
+                .setWallMillis(Double.parseDouble(fields.get(5)))
+                .setPeakHeapBytes(Long.parseLong(fields.get(6)))
+                .build();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+
+        public abstract Builder setProblem(String newProblem);
+
+        public abstract Builder setSolved(boolean newSolved);
+
+        public abstract Builder setPlanLength(int newPlanLength);
+
+        public abstract Builder setGroundActions(int newGroundActions);
+
+        public abstract Builder setGroundFacts(int newGroundFacts);
+
+        public abstract Builder setWallMillis(double newWallMillis);
+
+        public abstract Builder setPeakHeapBytes(long newPeakHeapBytes);
+
+        public abstract RunResult build();
+    }
+}
@@ -0,0 +1,306 @@
+package executor;
+
+import com.google.common.hash.HashCode;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of a {@link MoveHistory}, kept in a memory-mapped file so a restarted executor gets back its
+ * expected world. The file holds one checkpoint, the world and the retained moves, followed by the records of the
+ * plans executed and the moves undone and redone since. After checkpointInterval records, or when the mapped tail is
+ * full, a new file is written with a fresh checkpoint and atomically replaces the old one: the file never grows past
+ * one checkpoint and one tail, and recovery replays at most that tail, however long the executor has been running.
+ * Records are in the page cache as soon as they are appended, so they survive a crash of the process; they are only
+ * forced to the disk with the checkpoints and on close.
+ * The header holds the fingerprint of the ground problem, since fact and action ids only mean the same facts and
+ * actions to a ground problem interned in the same order: a journal written for another one is rejected.
+ * Layout, big endian: magic, version, number of ground actions, fingerprint, world (words and words), executed moves
+ * oldest first, undone moves next to redo first, then records of length, CRC32, type and payload, a zero length ending them.
+ * A move is its ground action id, added ids and removed ids.
+ */
+final class ExecutionJournal implements Closeable {
+    private static final int MAGIC = 0x524a524e;
+    private static final int VERSION = 2;
+    private static final int FINGERPRINT_BYTES = 16;
+    private static final byte EXECUTED = 1;
+    private static final byte UNDONE = 2;
+    private static final byte REDONE = 3;
+    // Length and CRC32 of a record
+    private static final int RECORD_HEADER = 8;
+
+    private final Path file;
+    private final GroundProblem groundProblem;
+    private final MoveHistory history;
+    private final int checkpointInterval;
+    private final int tailCapacity;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer tail;
+    private int records;
+
+    private ExecutionJournal(Path file, GroundProblem groundProblem, MoveHistory history, int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("checkpointInterval must be positive, was " + checkpointInterval);
+        }
+        this.file = file;
+        this.groundProblem = groundProblem;
+        this.history = history;
+        this.checkpointInterval = checkpointInterval;
+        int largestMove = 0;
+        for (GroundAction action : groundProblem.getActions()) {
+            largestMove = Math.max(largestMove, moveSize(action.getEffects().length));
+        }
+        // Room for the records of one-step plans and undos, a record that doesn't fit triggers the checkpoint
+        this.tailCapacity = checkpointInterval * (RECORD_HEADER + 5 + largestMove) + 4;
+    }
+
+    /**
+     * Journal of the history, replacing the file by a checkpoint of it
+     */
+    static ExecutionJournal create(Path file, GroundProblem groundProblem, MoveHistory history, int checkpointInterval)
+            throws IOException {
+        ExecutionJournal journal = new ExecutionJournal(file, groundProblem, history, checkpointInterval);
+        journal.checkpoint();
+        return journal;
+    }
+
+    /**
+     * History saved in the file: its checkpoint and then the complete records after it. A record torn by a crash
+     * and everything after it are ignored
+     */
+    static MoveHistory read(Path file, GroundProblem groundProblem, int maxHistory) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 12 + FINGERPRINT_BYTES || in.getInt() != MAGIC) {
+                throw new IOException(file + " is not an execution journal");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has version " + version + ", expected " + VERSION);
+            }
+            int actions = in.getInt();
+            if (actions != groundProblem.getActions().size()) {
+                throw new IOException(file + " was written for a problem with " + actions + " ground actions, not "
+                        + groundProblem.getActions().size());
+            }
+            byte[] fingerprint = new byte[FINGERPRINT_BYTES];
+            in.get(fingerprint);
+            if (!HashCode.fromBytes(fingerprint).equals(groundProblem.getFingerprint())) {
+                throw new IOException(file + " was written for another problem, or one whose facts were interned in "
+                        + "another order");
+            }
+            long[] world = new long[in.getInt()];
+            in.asLongBuffer().get(world);
+            in.position(in.position() + 8 * world.length);
+            MoveHistory history = new MoveHistory(world, maxHistory);
+            history.restore(readMoves(in, groundProblem), readMoves(in, groundProblem));
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= RECORD_HEADER) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) {
+                    break;
+                }
+                ByteBuffer record = in.slice();
+                record.limit(length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                in.position(in.position() + length);
+                replay(record, groundProblem, history);
+            }
+            return history;
+        }
+    }
+
+    /**
+     * Records a plan whose moves are the last ones executed, after the history committed them
+     */
+    void executed(List<Move> moves) throws IOException {
+        int size = 5;
+        for (Move move : moves) {
+            size += moveSize(move.added.length + move.removed.length);
+        }
+        ByteBuffer record = startRecord(EXECUTED, size);
+        if (record != null) {
+            record.putInt(moves.size());
+            for (Move move : moves) {
+                writeMove(record, move);
+            }
+            endRecord(size);
+        }
+    }
+
+    void undone() throws IOException {
+        if (startRecord(UNDONE, 1) != null) {
+            endRecord(1);
+        }
+    }
+
+    void redone() throws IOException {
+        if (startRecord(REDONE, 1) != null) {
+            endRecord(1);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        tail.force();
+        channel.close();
+    }
+
+    /**
+     * Buffer positioned for the payload of a record of the given size, type included, null if it doesn't fit:
+     * the history is then saved by a checkpoint instead
+     */
+    private ByteBuffer startRecord(byte type, int size) throws IOException {
+        if (tail.remaining() < RECORD_HEADER + size + 4) {
+            checkpoint();
+            return null;
+        }
+        tail.position(tail.position() + RECORD_HEADER);
+        tail.put(type);
+        return tail;
+    }
+
+    /**
+     * Writes the header of the record last, so a record is only seen once complete
+     */
+    private void endRecord(int size) throws IOException {
+        int end = tail.position();
+        int start = end - size - RECORD_HEADER;
+        ByteBuffer payload = tail.duplicate();
+        payload.position(start + RECORD_HEADER);
+        payload.limit(end);
+        crc.reset();
+        crc.update(payload);
+        tail.putInt(start + 4, (int) crc.getValue());
+        tail.putInt(start, size);
+        if (++records >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes the history to a new file, forces it and moves it over the journal, then maps its tail for the records
+     */
+    private void checkpoint() throws IOException {
+        int size = 16 + FINGERPRINT_BYTES + 8 * history.world().length + 8;
+        for (Iterator<Move> moves = history.executed(); moves.hasNext(); ) {
+            Move move = moves.next();
+            size += moveSize(move.added.length + move.removed.length);
+        }
+        for (Iterator<Move> moves = history.undone(); moves.hasNext(); ) {
+            Move move = moves.next();
+            size += moveSize(move.added.length + move.removed.length);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(groundProblem.getActions().size());
+        out.put(groundProblem.getFingerprint().asBytes());
+        out.putInt(history.world().length);
+        out.asLongBuffer().put(history.world());
+        out.position(out.position() + 8 * history.world().length);
+        writeMoves(out, history.executed());
+        writeMoves(out, history.undone());
+        out.flip();
+
+        Path next = file.resolveSibling(file.getFileName() + ".checkpoint");
+        try (FileChannel checkpoint = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                checkpoint.write(out);
+            }
+            checkpoint.force(true);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file with zeros, which read as the end of the records
+        tail = channel.map(FileChannel.MapMode.READ_WRITE, size, tailCapacity);
+        records = 0;
+    }
+
+    private static void replay(ByteBuffer record, GroundProblem groundProblem, MoveHistory history) {
+        byte type = record.get();
+        if (type == EXECUTED) {
+            for (int i = record.getInt(); i > 0; i--) {
+                history.replay(readMove(record, groundProblem));
+            }
+        } else if (type == UNDONE) {
+            history.undo();
+        } else if (type == REDONE) {
+            history.redo();
+        }
+    }
+
+    private static int moveSize(int facts) {
+        return 12 + 4 * facts;
+    }
+
+    private static void writeMoves(ByteBuffer out, Iterator<Move> moves) {
+        int countPosition = out.position();
+        out.putInt(0);
+        int count = 0;
+        while (moves.hasNext()) {
+            writeMove(out, moves.next());
+            count++;
+        }
+        out.putInt(countPosition, count);
+    }
+
+    private static List<Move> readMoves(ByteBuffer in, GroundProblem groundProblem) {
+        int count = in.getInt();
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(readMove(in, groundProblem));
+        }
+        return moves;
+    }
+
+    private static void writeMove(ByteBuffer out, Move move) {
+        out.putInt(move.action.getId());
+        writeIds(out, move.added);
+        writeIds(out, move.removed);
+    }
+
+    private static Move readMove(ByteBuffer in, GroundProblem groundProblem) {
+        GroundAction action = groundProblem.getAction(in.getInt());
+        int[] added = readIds(in);
+        return new Move(action, added, readIds(in));
+    }
+
+    private static void writeIds(ByteBuffer out, int[] ids) {
+        out.putInt(ids.length);
+        for (int id : ids) {
+            out.putInt(id);
+        }
+    }
+
+    private static int[] readIds(ByteBuffer in) {
+        int[] ids = new int[in.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.getInt();
+        }
+        return ids;
+    }
+}
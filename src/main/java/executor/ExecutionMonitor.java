@@ -0,0 +1,246 @@
+package executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import knowledge.Bits;
+import knowledge.Fact;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.Predicate;
+import knowledge.Problem;
+import knowledge.State;
+import knowledge.SymbolTable;
+import planner.CancellationToken;
+import planner.Plan;
+import planner.PlanValidator;
+import planner.Planner;
+import planner.PlanningResult;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Checks the rest of a plan against the observed world after each step, and repairs it when the world is not the
+ * expected one any more. In order:
+ * <ul>
+ * <li>the remaining plan is kept if it still reaches the goals;</li>
+ * <li>the goals are regressed through the remaining steps, giving for each suffix what must hold for it to reach
+ * them. The suffix whose condition is the closest to the observed world is kept, preceded by a short plan bringing
+ * the world to that condition, searched on the actions already grounded for the problem;</li>
+ * <li>otherwise the replanner plans the goals from the observed world, which grounds the problem again.</li>
+ * </ul>
+ * A small perturbation usually only costs a short search, and a perturbation doing some of the work for the robot
+ * lets it skip the steps that became useless.
+ */
+public final class ExecutionMonitor {
+    private final Problem problem;
+    private final GroundProblem groundProblem;
+    private final SymbolTable symbols;
+    private final PlanValidator validator;
+    private final Planner replanner;
+    private final HeuristicSearchPlanner repairer = HeuristicSearchPlanner.greedy();
+    // Ground actions by step, several when the preconditions have variables the predicate hasn't
+    private final Map<Predicate, List<GroundAction>> actions = new HashMap<>();
+
+    public ExecutionMonitor(Problem problem, Planner replanner) {
+        this.problem = problem;
+        this.groundProblem = problem.getGroundProblem();
+        this.symbols = groundProblem.getSymbols();
+        this.validator = new PlanValidator(groundProblem);
+        this.replanner = replanner;
+        for (GroundAction action : groundProblem.getActions()) {
+            actions.computeIfAbsent(action.getPredicate(), p -> new ArrayList<>(1)).add(action);
+        }
+    }
+
+    /**
+     * Plan to go on with from the observed world, the remaining plan being the steps not executed yet
+     */
+    public RepairResult check(State observed, Plan remaining, Set<Fact> goals, CancellationToken token) {
+        long[] world = world(observed);
+        List<Predicate> steps = remaining.getSequence();
+        if (validator.achieves(world, steps, goals)) {
+            return result(RepairResult.Outcome.VALID, remaining);
+        }
+        Condition[] conditions = regress(steps, goals);
+        int nearest = -1;
+        int nearestUnmet = Integer.MAX_VALUE;
+        // Latest suffixes first, so on a tie the shortest one wins
+        for (int k = steps.size(); k >= 0; k--) {
+            if (conditions[k] == null) {
+                break;
+            }
+            int unmet = conditions[k].unmet(world);
+            if (unmet == 0 && validator.achieves(world, steps.subList(k, steps.size()), goals)) {
+                return result(RepairResult.Outcome.REPAIRED, plan(steps.subList(k, steps.size())));
+            }
+            if (unmet < nearestUnmet) {
+                nearest = k;
+                nearestUnmet = unmet;
+            }
+        }
+        if (token.shouldStop()) {
+            return stopped();
+        }
+        if (nearest >= 0) {
+            PlanningResult bridge = repairer.planFrom(world, conditions[nearest].facts(), groundProblem, token);
+            if (bridge.getPlan().isPresent()) {
+                List<Predicate> repaired = ImmutableList.<Predicate>builder()
+                        .addAll(bridge.getPlan().get().getSequence())
+                        .addAll(steps.subList(nearest, steps.size()))
+                        .build();
+                if (validator.achieves(world, repaired, goals)) {
+                    return result(RepairResult.Outcome.REPAIRED, plan(repaired));
+                }
+            }
+        }
+        if (token.shouldStop()) {
+            return stopped();
+        }
+        Problem observedProblem = Problem.builder()
+                .setActions(problem.getActions())
+                .setTypes(problem.getTypes())
+                .setConstraints(problem.getConstraints())
+                .setInitialState(observed)
+                .build();
+        PlanningResult replanned = replanner.plan(goals, observedProblem, token);
+        RepairResult.Outcome outcome = replanned.getPlan().isPresent() ? RepairResult.Outcome.REPLANNED
+                : replanned.isStopped() ? RepairResult.Outcome.STOPPED : RepairResult.Outcome.FAILED;
+        return RepairResult.builder()
+                .setOutcome(outcome)
+                .setPlan(replanned.getPlan())
+                .setPlannerStatus(Optional.of(replanned.getStatus()))
+                .build();
+    }
+
+    /**
+     * Conditions for each suffix of the steps to reach the goals, the one at steps.size() being the goals. They are
+     * null before a step that can't be regressed: unknown, or undoing what the rest of the plan needs
+     */
+    private Condition[] regress(List<Predicate> steps, Set<Fact> goals) {
+        Condition[] conditions = new Condition[steps.size() + 1];
+        Condition goal = new Condition(Bits.empty(), Bits.empty());
+        for (Fact fact : goals) {
+            int id = symbols.idIfPresent(fact);
+            if (id == SymbolTable.NOT_PRESENT) {
+                if (fact.getSign()) {
+                    // Nothing makes it true, only replanning can tell
+                    return conditions;
+                }
+            } else if (SymbolTable.isPositive(id)) {
+                goal.positive = Bits.set(goal.positive, id);
+            } else {
+                goal.negative = Bits.set(goal.negative, SymbolTable.flip(id));
+            }
+        }
+        conditions[steps.size()] = goal;
+        for (int k = steps.size() - 1; k >= 0; k--) {
+            List<GroundAction> candidates = actions.get(steps.get(k));
+            Condition before = null;
+            for (int i = 0; candidates != null && before == null && i < candidates.size(); i++) {
+                before = conditions[k + 1].before(candidates.get(i));
+            }
+            if (before == null) {
+                break;
+            }
+            conditions[k] = before;
+        }
+        return conditions;
+    }
+
+    private long[] world(State observed) {
+        long[] world = new long[Bits.words(symbols.size())];
+        for (Fact fact : observed.getState()) {
+            int id = fact.getSign() ? symbols.idIfPresent(fact) : SymbolTable.NOT_PRESENT;
+            // Facts no ground action talks about can't change the steps
+            if (id != SymbolTable.NOT_PRESENT) {
+                world = Bits.set(world, id);
+            }
+        }
+        return world;
+    }
+
+    private static Plan plan(List<Predicate> steps) {
+        return Plan.builder().setSequence(ImmutableList.copyOf(steps)).build();
+    }
+
+    private static RepairResult result(RepairResult.Outcome outcome, Plan plan) {
+        return RepairResult.builder().setOutcome(outcome).setPlan(Optional.of(plan)).build();
+    }
+
+    private static RepairResult stopped() {
+        return RepairResult.builder().setOutcome(RepairResult.Outcome.STOPPED).build();
+    }
+
+    /**
+     * Positive ids that must hold and positive ids that must not
+     */
+    private final class Condition {
+        private long[] positive;
+        private long[] negative;
+
+        Condition(long[] positive, long[] negative) {
+            this.positive = positive;
+            this.negative = negative;
+        }
+
+        /**
+         * Condition for this one to hold after the action, with the action applicable. Null if the action deletes
+         * a fact that must hold or adds one that must not, or if its preconditions contradict the rest
+         */
+        Condition before(GroundAction action) {
+            long[] needed = positive.clone();
+            long[] excluded = negative.clone();
+            for (int fact : action.getAddEffects()) {
+                if (Bits.get(negative, fact)) {
+                    return null;
+                }
+                Bits.clear(needed, fact);
+            }
+            for (int fact : action.getDeleteEffects()) {
+                if (Bits.get(needed, fact)) {
+                    return null;
+                }
+                Bits.clear(excluded, fact);
+            }
+            for (int fact : action.getPositivePreconditions()) {
+                needed = Bits.set(needed, fact);
+            }
+            for (int fact : action.getNegativePreconditions()) {
+                excluded = Bits.set(excluded, fact);
+            }
+            return Bits.intersects(needed, excluded) ? null : new Condition(needed, excluded);
+        }
+
+        int unmet(long[] world) {
+            int unmet = 0;
+            for (int fact = Bits.nextSetBit(positive, 0); fact >= 0; fact = Bits.nextSetBit(positive, fact + 1)) {
+                if (!Bits.get(world, fact)) {
+                    unmet++;
+                }
+            }
+            for (int fact = Bits.nextSetBit(negative, 0); fact >= 0; fact = Bits.nextSetBit(negative, fact + 1)) {
+                if (Bits.get(world, fact)) {
+                    unmet++;
+                }
+            }
+            return unmet;
+        }
+
+        Set<Fact> facts() {
+            ImmutableSet.Builder<Fact> facts = ImmutableSet.builder();
+            for (int fact = Bits.nextSetBit(positive, 0); fact >= 0; fact = Bits.nextSetBit(positive, fact + 1)) {
+                facts.add(symbols.fact(fact));
+            }
+            for (int fact = Bits.nextSetBit(negative, 0); fact >= 0; fact = Bits.nextSetBit(negative, fact + 1)) {
+                facts.add(symbols.fact(SymbolTable.flip(fact)));
+            }
+            return facts.build();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package executor;
+
+import knowledge.GroundAction;
+
+/**
+ * A step as executed: its ground action and the facts it actually changed. The facts already in the wanted state
+ * when it ran are not in added or removed, so reverting the move restores the world exactly.
+ */
+final class Move {
+    final GroundAction action;
+    final int[] added;
+    final int[] removed;
+
+    Move(GroundAction action, int[] added, int[] removed) {
+        this.action = action;
+        this.added = added;
+        this.removed = removed;
+    }
+}
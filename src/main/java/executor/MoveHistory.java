@@ -0,0 +1,169 @@
+package executor;
+
+import knowledge.Bits;
+import knowledge.GroundAction;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Expected world of an executor, a bitset of the true fact ids updated in place, with its executed and undone moves.
+ * At most maxHistory moves are kept to be undone, the oldest ones are forgotten.
+ */
+final class MoveHistory {
+    private long[] world;
+    private final int maxHistory;
+    // Most recent first
+    private final Deque<Move> executed = new ArrayDeque<>();
+    // Next to redo first
+    private final Deque<Move> undone = new ArrayDeque<>();
+
+    MoveHistory(long[] world, int maxHistory) {
+        if (maxHistory < 0) {
+            throw new IllegalArgumentException("maxHistory must not be negative, was " + maxHistory);
+        }
+        this.world = world;
+        this.maxHistory = maxHistory;
+    }
+
+    /**
+     * Bitset of the true facts, must not be modified
+     */
+    long[] world() {
+        return world;
+    }
+
+    int maxHistory() {
+        return maxHistory;
+    }
+
+    /**
+     * Oldest first
+     */
+    Iterator<Move> executed() {
+        return executed.descendingIterator();
+    }
+
+    /**
+     * Next to redo first
+     */
+    Iterator<Move> undone() {
+        return undone.iterator();
+    }
+
+    boolean applicable(GroundAction action) {
+        return action.isApplicable(world);
+    }
+
+    /**
+     * Applies the action, negative effects first, and pushes its move. The undone moves and the moves past
+     * maxHistory are only dropped by commit, so the moves executed since can still be rolled back
+     */
+    Move execute(GroundAction action) {
+        int[] deletes = action.getDeleteEffects();
+        int[] removed = new int[deletes.length];
+        int removedCount = 0;
+        for (int fact : deletes) {
+            if (Bits.get(world, fact)) {
+                Bits.clear(world, fact);
+                removed[removedCount++] = fact;
+            }
+        }
+        int[] adds = action.getAddEffects();
+        int[] added = new int[adds.length];
+        int addedCount = 0;
+        for (int fact : adds) {
+            if (!Bits.get(world, fact)) {
+                world = Bits.set(world, fact);
+                added[addedCount++] = fact;
+            }
+        }
+        Move move = new Move(action, Arrays.copyOf(added, addedCount), Arrays.copyOf(removed, removedCount));
+        executed.push(move);
+        return move;
+    }
+
+    /**
+     * Reverts and forgets the count last executed moves
+     */
+    void rollback(int count) {
+        for (; count > 0; count--) {
+            revert(executed.pop());
+        }
+    }
+
+    void commit() {
+        undone.clear();
+        while (executed.size() > maxHistory) {
+            executed.removeLast();
+        }
+    }
+
+    /**
+     * Executes a move recorded before, it must be applicable
+     */
+    void replay(Move move) {
+        reapply(move);
+        executed.push(move);
+        commit();
+    }
+
+    /**
+     * The move undone, null if there is none
+     */
+    Move undo() {
+        if (executed.isEmpty()) {
+            return null;
+        }
+        Move move = executed.pop();
+        revert(move);
+        undone.push(move);
+        return move;
+    }
+
+    /**
+     * The move redone, null if there is none
+     */
+    Move redo() {
+        if (undone.isEmpty()) {
+            return null;
+        }
+        Move move = undone.pop();
+        reapply(move);
+        executed.push(move);
+        return move;
+    }
+
+    /**
+     * Puts back the history saved by a checkpoint, the world already being the one after the executed moves.
+     * Executed moves come oldest first, undone ones next to redo first
+     */
+    void restore(Iterable<Move> executedMoves, Iterable<Move> undoneMoves) {
+        for (Move move : executedMoves) {
+            executed.push(move);
+        }
+        for (Move move : undoneMoves) {
+            undone.addLast(move);
+        }
+    }
+
+    private void revert(Move move) {
+        for (int fact : move.added) {
+            Bits.clear(world, fact);
+        }
+        for (int fact : move.removed) {
+            world = Bits.set(world, fact);
+        }
+    }
+
+    private void reapply(Move move) {
+        for (int fact : move.removed) {
+            Bits.clear(world, fact);
+        }
+        for (int fact : move.added) {
+            world = Bits.set(world, fact);
+        }
+    }
+}
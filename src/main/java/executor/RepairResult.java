@@ -0,0 +1,49 @@
+package executor;
+
+import com.google.auto.value.AutoValue;
+import planner.Plan;
+import planner.PlanningResult;
+
+import java.util.Optional;
+
+/**
+ * Plan to go on with after an observation, see {@link ExecutionMonitor#check}
+ */
+@AutoValue
+public abstract class RepairResult {
+    public enum Outcome {
+        // The remaining plan still reaches the goals
+        VALID,
+        // A later part of the remaining plan, preceded by the moves bringing the observed world to it
+        REPAIRED,
+        // Planned again from the observed world
+        REPLANNED,
+        // The replanner found no plan from the observed world, its status tells whether there is none (UNSOLVABLE)
+        // or it gave up (EXHAUSTED)
+        FAILED,
+        // The token stopped the repair or the replanner before a plan was found, there may be one
+        STOPPED
+    }
+
+    public abstract Outcome getOutcome();
+
+    public abstract Optional<Plan> getPlan();
+
+    // Status of the replanner, present only if it was called
+    public abstract Optional<PlanningResult.Status> getPlannerStatus();
+
+    public static Builder builder() {
+        return new AutoValue_RepairResult.Builder().setPlan(Optional.empty()).setPlannerStatus(Optional.empty());
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder setOutcome(Outcome newOutcome);
+
+        public abstract Builder setPlan(Optional<Plan> newPlan);
+
+        public abstract Builder setPlannerStatus(Optional<PlanningResult.Status> newPlannerStatus);
+
+        public abstract RepairResult build();
+    }
+}
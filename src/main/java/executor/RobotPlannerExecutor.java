@@ -1,40 +1,212 @@
 package executor;
 
+import com.google.common.collect.ImmutableList;
+import knowledge.Bits;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.Predicate;
+import knowledge.Problem;
 import knowledge.State;
+import knowledge.SymbolTable;
 import planner.Plan;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-public class RobotPlannerExecutor implements Executor {
+/**
+ * Executes plans of a problem on its expected world, a bitset of the true fact ids updated in place.
+ * A move is one step of a plan: it is applied as the delta of the facts its ground action actually removes and adds
+ * (negative effects first, as in {@link planner.PlanValidator}), and that delta is kept to undo and redo it, so each of
+ * these costs the size of the action effects rather than the size of the world. The world is closed: only positive
+ * facts are stored and a negative fact holds when its fact is absent.
+ * The last maxHistory moves can be undone. A journaled executor also writes its moves to an
+ * {@link ExecutionJournal}, and starts again from it after a restart.
+ */
+public class RobotPlannerExecutor implements Executor, AutoCloseable {
+    public static final int DEFAULT_MAX_HISTORY = 1024;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 4096;
+
+    private final SymbolTable symbols;
+    // Ground actions by step, several when the preconditions have variables the predicate hasn't (unstack X: on X Y)
+    private final Map<Predicate, List<GroundAction>> actions = new HashMap<>();
+    private final MoveHistory history;
+    // Null if not journaled
+    private ExecutionJournal journal;
+    // Frozen copy of the world, made when asked for and dropped on the next change
     private State expectedWorldState;
-    private Deque<Plan> executedPlans = new ArrayDeque<>();
-    private Deque<Plan> undoPlans = new ArrayDeque<>();
 
-    static RobotPlannerExecutor withInitialState(State initialState) {
-        return new RobotPlannerExecutor(initialState);
+    private RobotPlannerExecutor(GroundProblem groundProblem, MoveHistory history) {
+        this.symbols = groundProblem.getSymbols();
+        for (GroundAction action : groundProblem.getActions()) {
+            actions.computeIfAbsent(action.getPredicate(), p -> new ArrayList<>(1)).add(action);
+        }
+        this.history = history;
+    }
+
+    /**
+     * Executor starting from the initial state of the problem
+     */
+    public static RobotPlannerExecutor forProblem(Problem problem) {
+        GroundProblem groundProblem = problem.getGroundProblem();
+        return new RobotPlannerExecutor(groundProblem, new MoveHistory(initialWorld(groundProblem), DEFAULT_MAX_HISTORY));
     }
 
-    private RobotPlannerExecutor(State expectedWorldState) {
-        this.expectedWorldState = expectedWorldState;
+    /**
+     * Executor starting from the given state. The problem only grounds the actions reachable from its own initial
+     * state, so when the given state differs it is grounded again from that state
+     */
+    public static RobotPlannerExecutor withInitialState(Problem problem, State initialState) {
+        if (problem.getInitialState().equals(initialState)) {
+            return forProblem(problem);
+        }
+        return forProblem(Problem.builder()
+                .setActions(problem.getActions())
+                .setConstraints(problem.getConstraints())
+                .setTypes(problem.getTypes())
+                .setInitialState(initialState)
+                .build());
     }
 
+    public static RobotPlannerExecutor journaled(Problem problem, Path journal) throws IOException {
+        return journaled(problem, journal, DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_MAX_HISTORY);
+    }
+
+    /**
+     * Executor recovering the world and the moves saved in the journal file if it exists, starting from the initial
+     * state of the problem otherwise. The journal must have been written for the same problem
+     */
+    public static RobotPlannerExecutor journaled(Problem problem, Path journal, int checkpointInterval, int maxHistory)
+            throws IOException {
+        GroundProblem groundProblem = problem.getGroundProblem();
+        MoveHistory history = Files.exists(journal)
+                ? ExecutionJournal.read(journal, groundProblem, maxHistory)
+                : new MoveHistory(initialWorld(groundProblem), maxHistory);
+        RobotPlannerExecutor executor = new RobotPlannerExecutor(groundProblem, history);
+        executor.journal = ExecutionJournal.create(journal, groundProblem, history, checkpointInterval);
+        return executor;
+    }
+
+    @Override
     public State getExpectedWorldState() {
-        return this.expectedWorldState;
+        if (expectedWorldState == null) {
+            expectedWorldState = State.ofIds(symbols, history.world());
+        }
+        return expectedWorldState;
     }
 
+    /**
+     * Executes the steps in order. If one of them is not a ground action of the problem or is not applicable when it
+     * comes, the steps already executed are undone and an IllegalArgumentException is thrown.
+     * Executing a plan forgets the undone moves.
+     */
     @Override
     public void executePlan(Plan plan) {
-
+        List<Move> moves = new ArrayList<>(plan.getSequence().size());
+        for (Predicate step : plan.getSequence()) {
+            List<GroundAction> candidates = actions.get(step);
+            GroundAction action = candidates == null ? null : applicable(candidates);
+            if (action == null) {
+                history.rollback(moves.size());
+                throw new IllegalArgumentException((candidates == null ? "Unknown action " : "Action not applicable ") + step);
+            }
+            moves.add(history.execute(action));
+        }
+        if (moves.isEmpty()) {
+            return;
+        }
+        history.commit();
+        expectedWorldState = null;
+        if (journal != null) {
+            try {
+                journal.executed(moves);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
+    /**
+     * @return Plan holding the step undone, empty if no move was executed
+     */
     @Override
     public Plan undoMove() {
-        return null;
+        Move move = history.undo();
+        if (move == null) {
+            return emptyPlan();
+        }
+        expectedWorldState = null;
+        if (journal != null) {
+            try {
+                journal.undone();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return planOf(move);
     }
 
+    /**
+     * @return Plan holding the step redone, empty if no move was undone
+     */
     @Override
     public Plan redoMove() {
+        Move move = history.redo();
+        if (move == null) {
+            return emptyPlan();
+        }
+        expectedWorldState = null;
+        if (journal != null) {
+            try {
+                journal.redone();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return planOf(move);
+    }
+
+    /**
+     * Forces the journal to the disk and closes it, nothing to do if not journaled
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private GroundAction applicable(List<GroundAction> candidates) {
+        for (GroundAction action : candidates) {
+            if (history.applicable(action)) {
+                return action;
+            }
+        }
         return null;
     }
+
+    private static long[] initialWorld(GroundProblem groundProblem) {
+        long[] initial = groundProblem.getInitialState();
+        long[] world = new long[initial.length];
+        for (int fact = Bits.nextSetBit(initial, 0); fact >= 0; fact = Bits.nextSetBit(initial, fact + 1)) {
+            if (SymbolTable.isPositive(fact)) {
+                world = Bits.set(world, fact);
+            }
+        }
+        return world;
+    }
+
+    private static Plan planOf(Move move) {
+        return Plan.builder().setSequence(ImmutableList.of(move.action.getPredicate())).build();
+    }
+
+    private static Plan emptyPlan() {
+        return Plan.builder().setSequence(ImmutableList.of()).build();
+    }
 }
@@ -11,6 +11,11 @@ import static knowledge.Constants.*;
 
 @AutoValue
 public abstract class Action {
+    // Compiled on first use, see schema()
+    private ActionSchema schema;
+    // Computed on first use. Its fields are final, so a thread seeing the reference sees them initialized
+    private Partition partition;
+
     public abstract Predicate getPredicate();
 
     public abstract Set<Fact> getPreconditions();
@@ -44,27 +49,37 @@ public abstract class Action {
 
     public Optional<Action> match(Fact currentGoal) {
         if (currentGoal.getSign()) {
-            Optional<Unification> actionUnification = getEffects().stream().filter(effect -> effect.getSign())
-                    .map(effect -> effect.unify(currentGoal))
-                    .filter(unification -> unification.isValid())
-                    // TODO: Ok, here there's another nondeterministic point
-                    // Assuming an action effects can't include a goal in more than one way, this is fine
-                    // otherwise we need to backtrack on this too
-                    .findFirst();
-            if (actionUnification.isPresent()) {
-                return Optional.of(applyUnification(actionUnification.get()));
-
+            ActionSchema schema = schema();
+            String[] bindings = schema.newBindings();
+            int[] bound = new int[currentGoal.getPredicate().getArguments().size()];
+            for (int i = 0; i < schema.effects.length; i++) {
+                // TODO: Ok, here there's another nondeterministic point
+                // Assuming an action effects can't include a goal in more than one way, this is fine
+                // otherwise we need to backtrack on this too
+                if (schema.effectSigns[i] && schema.effects[i].bind(currentGoal.getPredicate(), bindings, bound) >= 0) {
+                    return Optional.of(schema.instantiate(bindings));
+                }
             }
         }
         return Optional.empty();
     }
 
+    /**
+     * This action compiled for matching and instantiating without going through Unification maps
+     */
+    synchronized ActionSchema schema() {
+        if (schema == null) {
+            schema = new ActionSchema(this);
+        }
+        return schema;
+    }
+
     public boolean wellFormed() {
         return getPreconditions().stream().allMatch(Fact::wellFormed) &&
                 getEffects().stream().allMatch(Fact::wellFormed) && getPredicate().wellFormed();
     }
 
-    private Action applyUnification(Unification unification) {
+    Action applyUnification(Unification unification) {
         return builder()
             .setEffects(getEffects().stream().map(fact -> fact.applyUnification(unification)).collect(Collectors.toSet()))
             .setPreconditions(getPreconditions().stream().map(fact -> fact.applyUnification(unification)).collect(Collectors.toSet()))
@@ -78,13 +93,31 @@ public abstract class Action {
     }
 
     public Set<Action> instantiate(Problem problem) {
-        Set<String> vars = allVars();
-        Set<Unification> unifications = problem.instantiateVariables(vars);
-        return unifications.stream().map(this::applyUnification).filter(Action::wellFormed).collect(Collectors.toSet());
+        ActionSchema schema = schema();
+        Set<Action> actions = new HashSet<>();
+        instantiate(problem, schema, schema.newBindings(), 0, actions);
+        return actions;
+    }
+
+    /**
+     * Every value of the type of the variable in slot and the following ones, one binding array for all of them
+     */
+    private static void instantiate(Problem problem, ActionSchema schema, String[] bindings, int slot, Set<Action> actions) {
+        if (slot == bindings.length) {
+            if (schema.wellFormed(bindings)) {
+                actions.add(schema.instantiate(bindings));
+            }
+            return;
+        }
+        for (String value : problem.domainOf(schema.variables.get(slot))) {
+            bindings[slot] = value;
+            instantiate(problem, schema, bindings, slot + 1, actions);
+        }
+        bindings[slot] = null;
     }
 
 
-    private Set<String> allVars() {
+    Set<String> allVars() {
         return Sets.union(Sets.union(
                 getPredicate().allVars(),
                 getPreconditions().stream()
@@ -96,38 +129,68 @@ public abstract class Action {
     }
 
     public Set<Fact> getPositiveEffects() {
-        return getEffects().stream().filter(Fact::getSign).collect(Collectors.toSet());
+        return partition().positiveEffects;
     }
 
     public Set<Fact> getNegativeEffects() {
-        return getEffects().stream().filter(a -> !a.getSign()).map(Fact::flip).collect(Collectors.toSet());
+        return partition().negativeEffects;
     }
 
     public Set<Fact> getPositivePreconditions() {
-        return getPreconditions().stream().filter(Fact::getSign).collect(Collectors.toSet());
+        return partition().positivePreconditions;
     }
 
     public Set<Fact> getNegativePreconditions() {
-        return getPreconditions().stream().filter(a -> !a.getSign()).map(Fact::flip).collect(Collectors.toSet());
+        return partition().negativePreconditions;
+    }
+
+    private Partition partition() {
+        Partition p = partition;
+        if (p == null) {
+            p = new Partition(getPreconditions(), getEffects());
+            partition = p;
+        }
+        return p;
     }
 
     public Set<Fact> constraintEffects(Problem problem) {
+        ConstraintIndex index = problem.getConstraintIndex();
         ImmutableSet.Builder<Fact> constraintEffects = ImmutableSet.builder();
-        for (Constraint c : problem.getConstraints()) {
-            for(Fact effect : getPositiveEffects()) {
-                Unification u = c.getAntecendent().unify(effect.getPredicate());
-                if (u.isValid()) {
-                    Constraint instConstraint = c.applyUnification(u);
-                    Set<Constraint> instantiated = instConstraint.instantiate(problem);
-                    instantiated.stream()
-                            .forEach(fullyGroundConst -> constraintEffects.addAll(fullyGroundConst.getConsequents()));
-                }
+        for (Fact effect : getEffects()) {
+            if (effect.getSign()) {
+                constraintEffects.addAll(index.consequents(effect.getPredicate()));
             }
-
         }
         return constraintEffects.build();
     }
 
+    /**
+     * Preconditions and effects split by sign, the negative ones flipped to positive facts
+     */
+    private static final class Partition {
+        private final Set<Fact> positivePreconditions;
+        private final Set<Fact> negativePreconditions;
+        private final Set<Fact> positiveEffects;
+        private final Set<Fact> negativeEffects;
+
+        Partition(Set<Fact> preconditions, Set<Fact> effects) {
+            this.positivePreconditions = withSign(preconditions, true);
+            this.negativePreconditions = withSign(preconditions, false);
+            this.positiveEffects = withSign(effects, true);
+            this.negativeEffects = withSign(effects, false);
+        }
+
+        private static Set<Fact> withSign(Set<Fact> facts, boolean positive) {
+            ImmutableSet.Builder<Fact> selected = ImmutableSet.builder();
+            for (Fact fact : facts) {
+                if (fact.getSign() == positive) {
+                    selected.add(positive ? fact : fact.flip());
+                }
+            }
+            return selected.build();
+        }
+    }
+
     @AutoValue.Builder
     public abstract static class Builder {
 
@@ -0,0 +1,85 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An {@link Action} compiled for matching and instantiating: its variables, in the order of Action.allVars, are the
+ * slots of a String[] binding array, and its predicate and facts are patterns over them.
+ * Instances are immutable and can be shared; the binding arrays belong to the callers.
+ */
+final class ActionSchema {
+    final ImmutableList<String> variables;
+    final PredicatePattern predicate;
+    final PredicatePattern[] preconditions;
+    final boolean[] preconditionSigns;
+    final PredicatePattern[] effects;
+    final boolean[] effectSigns;
+
+    ActionSchema(Action action) {
+        this.variables = ImmutableList.copyOf(action.allVars());
+        this.predicate = new PredicatePattern(action.getPredicate(), variables);
+        this.preconditions = new PredicatePattern[action.getPreconditions().size()];
+        this.preconditionSigns = new boolean[preconditions.length];
+        compile(action.getPreconditions(), preconditions, preconditionSigns, variables);
+        this.effects = new PredicatePattern[action.getEffects().size()];
+        this.effectSigns = new boolean[effects.length];
+        compile(action.getEffects(), effects, effectSigns, variables);
+    }
+
+    /**
+     * Compiles the facts in their iteration order, which instantiations keep
+     */
+    static void compile(Set<Fact> facts, PredicatePattern[] patterns, boolean[] signs, ImmutableList<String> variables) {
+        int i = 0;
+        for (Fact fact : facts) {
+            patterns[i] = new PredicatePattern(fact.getPredicate(), variables);
+            signs[i++] = fact.getSign();
+        }
+    }
+
+    String[] newBindings() {
+        return new String[variables.size()];
+    }
+
+    /**
+     * Same as Action.wellFormed on the instantiated action
+     */
+    boolean wellFormed(String[] bindings) {
+        if (!predicate.wellFormed(bindings)) {
+            return false;
+        }
+        for (PredicatePattern precondition : preconditions) {
+            if (!precondition.wellFormed(bindings)) {
+                return false;
+            }
+        }
+        for (PredicatePattern effect : effects) {
+            if (!effect.wellFormed(bindings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The action with the bound variables replaced by their values
+     */
+    Action instantiate(String[] bindings) {
+        return Action.builder()
+                .setPredicate(predicate.instantiate(bindings))
+                .setPreconditions(facts(preconditions, preconditionSigns, bindings))
+                .setEffects(facts(effects, effectSigns, bindings))
+                .build();
+    }
+
+    static Set<Fact> facts(PredicatePattern[] patterns, boolean[] signs, String[] bindings) {
+        Set<Fact> facts = new HashSet<>();
+        for (int i = 0; i < patterns.length; i++) {
+            facts.add(Fact.builder().setPredicate(patterns[i].instantiate(bindings)).setSign(signs[i]).build());
+        }
+        return facts;
+    }
+}
@@ -0,0 +1,137 @@
+package knowledge;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for sets of dense ids stored as plain long[] bitsets.
+ * Bitsets of different lengths can be mixed: missing words are treated as empty,
+ * so a set never has to be resized just because the id universe grew.
+ */
+public final class Bits {
+    private static final int ADDRESS_BITS = 6;
+    private static final long[] EMPTY = new long[0];
+
+    private Bits() {
+    }
+
+    public static long[] empty() {
+        return EMPTY;
+    }
+
+    public static long[] ofIds(int... ids) {
+        long[] bits = EMPTY;
+        for (int id : ids) {
+            bits = set(bits, id);
+        }
+        return bits;
+    }
+
+    public static int words(int size) {
+        return (size + 63) >>> ADDRESS_BITS;
+    }
+
+    public static boolean get(long[] bits, int id) {
+        int word = id >>> ADDRESS_BITS;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Sets the bit in place if it fits, otherwise returns a grown copy with the bit set
+     */
+    public static long[] set(long[] bits, int id) {
+        int word = id >>> ADDRESS_BITS;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, 2 * bits.length));
+        }
+        bits[word] |= 1L << id;
+        return bits;
+    }
+
+    public static void clear(long[] bits, int id) {
+        int word = id >>> ADDRESS_BITS;
+        if (word < bits.length) {
+            bits[word] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * True if every id of subset is also in bits
+     */
+    public static boolean containsAll(long[] bits, long[] subset) {
+        for (int i = 0; i < subset.length; i++) {
+            long word = i < bits.length ? bits[i] : 0L;
+            if ((subset[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean intersects(long[] a, long[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static long[] or(long[] a, long[] b) {
+        long[] longer = a.length >= b.length ? a : b;
+        long[] shorter = a.length >= b.length ? b : a;
+        long[] result = Arrays.copyOf(longer, longer.length);
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return result;
+    }
+
+    public static boolean equal(long[] a, long[] b) {
+        int longest = Math.max(a.length, b.length);
+        for (int i = 0; i < longest; i++) {
+            if ((i < a.length ? a[i] : 0L) != (i < b.length ? b[i] : 0L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first set bit at or after from, -1 if there is none.
+     * Iterate with {@code for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1))}
+     */
+    public static int nextSetBit(long[] bits, int from) {
+        int word = from >>> ADDRESS_BITS;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while (true) {
+            if (current != 0) {
+                return (word << ADDRESS_BITS) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            current = bits[word];
+        }
+    }
+
+    public static int[] toIds(long[] bits) {
+        int[] ids = new int[cardinality(bits)];
+        int i = 0;
+        for (int id = nextSetBit(bits, 0); id >= 0; id = nextSetBit(bits, id + 1)) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+}
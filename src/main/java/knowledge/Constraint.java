@@ -13,6 +13,9 @@ import static knowledge.Constants.FACT_SEPARATOR;
 
 @AutoValue
 public abstract class Constraint {
+    // Compiled on first use, see schema()
+    private ConstraintSchema schema;
+
     public abstract Predicate getAntecendent();
     public abstract Set<Fact> getConsequents();
 
@@ -31,7 +34,7 @@ public abstract class Constraint {
                 .setConsequents(effects).build();
     }
 
-    private Set<String> allVars() {
+    Set<String> allVars() {
         return Sets.union(
                 getAntecendent().allVars(),
                 getConsequents().stream()
@@ -45,6 +48,16 @@ public abstract class Constraint {
         return unifications.stream().map(this::applyUnification).filter(Constraint::wellFormed).collect(Collectors.toSet());
     }
 
+    /**
+     * This constraint compiled for matching and instantiating without going through Unification maps
+     */
+    synchronized ConstraintSchema schema() {
+        if (schema == null) {
+            schema = new ConstraintSchema(this);
+        }
+        return schema;
+    }
+
 
     public Constraint applyUnification(Unification unification) {
         return builder()
@@ -0,0 +1,65 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consequents of the constraints of a problem by ground fact. Constraints are compiled once and filed by the name
+ * and arity of their antecedent, and the consequents of a fact are derived the first time it is asked about and then
+ * kept, so deriving the constraint effects of an action is one lookup per positive effect.
+ * Used from many threads at once.
+ */
+final class ConstraintIndex {
+    private final Problem problem;
+    private final Map<String, List<ConstraintSchema>> byAntecedent = new HashMap<>();
+    private final Map<Predicate, Set<Fact>> consequents = new ConcurrentHashMap<>();
+
+    ConstraintIndex(Problem problem) {
+        this.problem = problem;
+        for (Constraint constraint : problem.getConstraints()) {
+            Predicate antecedent = constraint.getAntecendent();
+            byAntecedent.computeIfAbsent(key(antecedent.getName(), antecedent.getArguments().size()),
+                    k -> new ArrayList<>()).add(constraint.schema());
+        }
+    }
+
+    /**
+     * Consequents of every well formed instantiation of a constraint whose antecedent is the fact
+     */
+    Set<Fact> consequents(Predicate fact) {
+        Set<Fact> known = consequents.get(fact);
+        if (known == null) {
+            known = derive(fact);
+            consequents.putIfAbsent(fact, known);
+        }
+        return known;
+    }
+
+    private Set<Fact> derive(Predicate fact) {
+        List<ConstraintSchema> schemas = byAntecedent.getOrDefault(key(fact.getName(), fact.getArguments().size()),
+                Collections.emptyList());
+        if (schemas.isEmpty()) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Fact> derived = ImmutableSet.builder();
+        int[] bound = new int[fact.getArguments().size()];
+        for (ConstraintSchema schema : schemas) {
+            String[] bindings = schema.newBindings();
+            if (schema.antecedent.bind(fact, bindings, bound) >= 0) {
+                schema.consequents(problem, bindings, derived::add);
+            }
+        }
+        return derived.build();
+    }
+
+    private static String key(String name, int arity) {
+        return name + "/" + arity;
+    }
+}
@@ -0,0 +1,73 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.function.Consumer;
+
+/**
+ * A {@link Constraint} compiled like {@link ActionSchema}: variables in the order of Constraint.allVars as slots of
+ * a binding array, antecedent and consequents as patterns over them.
+ */
+final class ConstraintSchema {
+    final ImmutableList<String> variables;
+    final PredicatePattern antecedent;
+    final PredicatePattern[] consequents;
+    final boolean[] consequentSigns;
+
+    ConstraintSchema(Constraint constraint) {
+        this.variables = ImmutableList.copyOf(constraint.allVars());
+        this.antecedent = new PredicatePattern(constraint.getAntecendent(), variables);
+        this.consequents = new PredicatePattern[constraint.getConsequents().size()];
+        this.consequentSigns = new boolean[consequents.length];
+        ActionSchema.compile(constraint.getConsequents(), consequents, consequentSigns, variables);
+    }
+
+    String[] newBindings() {
+        return new String[variables.size()];
+    }
+
+    /**
+     * Same as Constraint.wellFormed on the instantiated constraint
+     */
+    boolean wellFormed(String[] bindings) {
+        if (!antecedent.wellFormed(bindings)) {
+            return false;
+        }
+        for (PredicatePattern consequent : consequents) {
+            if (!consequent.wellFormed(bindings) || consequent.sameAs(antecedent, bindings, bindings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives the consequents of every well formed instantiation of the constraint extending the bindings, the unbound
+     * variables ranging over their types. The bindings are left as they were
+     */
+    void consequents(Problem problem, String[] bindings, Consumer<Fact> consumer) {
+        enumerate(problem, bindings, 0, consumer);
+    }
+
+    private void enumerate(Problem problem, String[] bindings, int slot, Consumer<Fact> consumer) {
+        while (slot < bindings.length && bindings[slot] != null) {
+            slot++;
+        }
+        if (slot == bindings.length) {
+            if (wellFormed(bindings)) {
+                for (int i = 0; i < consequents.length; i++) {
+                    consumer.accept(Fact.builder()
+                            .setPredicate(consequents[i].instantiate(bindings))
+                            .setSign(consequentSigns[i])
+                            .build());
+                }
+            }
+            return;
+        }
+        for (String value : problem.domainOf(variables.get(slot))) {
+            bindings[slot] = value;
+            enumerate(problem, bindings, slot + 1, consumer);
+        }
+        bindings[slot] = null;
+    }
+}
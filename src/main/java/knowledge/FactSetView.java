@@ -0,0 +1,68 @@
+package knowledge;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Unmodifiable set of the facts whose ids are in a bitset, unpacked from the symbol table as they are iterated.
+ * Lets a loaded problem expose its initial state without creating its facts unless somebody looks at them.
+ */
+final class FactSetView extends AbstractSet<Fact> {
+    private final SymbolTable symbols;
+    private final long[] ids;
+    private final int size;
+
+    FactSetView(SymbolTable symbols, long[] ids) {
+        this.symbols = symbols;
+        this.ids = ids;
+        this.size = Bits.cardinality(ids);
+    }
+
+    SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * The bitset itself, must not be modified
+     */
+    long[] ids() {
+        return ids;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Fact)) {
+            return false;
+        }
+        int id = symbols.idIfPresent((Fact) o);
+        return id != SymbolTable.NOT_PRESENT && Bits.get(ids, id);
+    }
+
+    @Override
+    public Iterator<Fact> iterator() {
+        return new Iterator<Fact>() {
+            private int next = Bits.nextSetBit(ids, 0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Fact next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                Fact fact = symbols.fact(next);
+                next = Bits.nextSetBit(ids, next + 1);
+                return fact;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,133 @@
+package knowledge;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Fully instantiated action of a {@link GroundProblem}, named by its predicate and with its facts compiled to
+ * symbol table ids.
+ * Effects include the consequents of the constraints triggered by the action. They are also available split by
+ * sign, as the positive ids that must hold, must not hold, are added and are deleted, for the closed world view of
+ * states as bitsets of positive ids.
+ */
+@AutoValue
+public abstract class GroundAction {
+    // Computed on first use. Its fields are final, so a thread seeing the reference sees them initialized
+    private Partition partition;
+
+    // Dense, index of the action in GroundProblem.getActions()
+    public abstract int getId();
+
+    public abstract Predicate getPredicate();
+
+    @SuppressWarnings("mutable")
+    public abstract int[] getPreconditions();
+
+    @SuppressWarnings("mutable")
+    public abstract int[] getEffects();
+
+    public static Builder builder() {
+        return new AutoValue_GroundAction.Builder();
+    }
+
+    public int[] getPositivePreconditions() {
+        return partition().positivePreconditions;
+    }
+
+    /**
+     * Positive ids of the facts that must not hold
+     */
+    public int[] getNegativePreconditions() {
+        return partition().negativePreconditions;
+    }
+
+    public int[] getAddEffects() {
+        return partition().addEffects;
+    }
+
+    /**
+     * Positive ids of the facts removed
+     */
+    public int[] getDeleteEffects() {
+        return partition().deleteEffects;
+    }
+
+    /**
+     * True if the action can be applied in the state, the bitset of the positive fact ids that hold
+     */
+    public boolean isApplicable(long[] state) {
+        Partition p = partition();
+        for (int fact : p.positivePreconditions) {
+            if (!Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        for (int fact : p.negativePreconditions) {
+            if (Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Partition partition() {
+        Partition p = partition;
+        if (p == null) {
+            p = new Partition(getPreconditions(), getEffects());
+            partition = p;
+        }
+        return p;
+    }
+
+    @Override
+    public String toString() {
+        return getPredicate().toString();
+    }
+
+    private static final class Partition {
+        private final int[] positivePreconditions;
+        private final int[] negativePreconditions;
+        private final int[] addEffects;
+        private final int[] deleteEffects;
+
+        Partition(int[] preconditions, int[] effects) {
+            this.positivePreconditions = withSign(preconditions, true);
+            this.negativePreconditions = withSign(preconditions, false);
+            this.addEffects = withSign(effects, true);
+            this.deleteEffects = withSign(effects, false);
+        }
+
+        /**
+         * Facts of the given sign, as positive ids
+         */
+        private static int[] withSign(int[] facts, boolean positive) {
+            int count = 0;
+            for (int fact : facts) {
+                if (SymbolTable.isPositive(fact) == positive) {
+                    count++;
+                }
+            }
+            int[] ids = new int[count];
+            int i = 0;
+            for (int fact : facts) {
+                if (SymbolTable.isPositive(fact) == positive) {
+                    ids[i++] = positive ? fact : SymbolTable.flip(fact);
+                }
+            }
+            return ids;
+        }
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+
+        public abstract Builder setId(int newId);
+
+        public abstract Builder setPredicate(Predicate newPredicate);
+
+        public abstract Builder setPreconditions(int[] newPreconditions);
+
+        public abstract Builder setEffects(int[] newEffects);
+
+        public abstract GroundAction build();
+    }
+}
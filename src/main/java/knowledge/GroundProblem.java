@@ -0,0 +1,84 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A {@link Problem} with its actions grounded and its facts encoded as ids of the problem symbol table.
+ * Only the actions whose preconditions are reachable from the initial state (ignoring deletes) are kept.
+ * It is immutable and shared by every planning call on the same problem, see {@link Problem#getGroundProblem()}.
+ */
+public final class GroundProblem {
+    private final Problem problem;
+    private final ImmutableList<GroundAction> actions;
+    private final long[] initialState;
+    private HashCode fingerprint;
+
+    GroundProblem(Problem problem, ImmutableList<GroundAction> actions, long[] initialState) {
+        this.problem = problem;
+        this.actions = actions;
+        this.initialState = initialState;
+    }
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public SymbolTable getSymbols() {
+        return problem.getSymbolTable();
+    }
+
+    public ImmutableList<GroundAction> getActions() {
+        return actions;
+    }
+
+    public GroundAction getAction(int id) {
+        return actions.get(id);
+    }
+
+    /**
+     * Bitset of the fact ids of the initial state, must not be modified
+     */
+    public long[] getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * 128 bit hash of the ground actions in id order and of the initial state, with every fact id they use and the
+     * fact it stands for, computed once. Ids saved by one ground problem (e.g. in an execution journal) only mean the
+     * same facts and actions to another one with the same fingerprint
+     */
+    public synchronized HashCode getFingerprint() {
+        if (fingerprint == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            hasher.putInt(actions.size());
+            for (GroundAction action : actions) {
+                putString(hasher, action.getPredicate().toString());
+                putFacts(hasher, action.getPreconditions());
+                putFacts(hasher, action.getEffects());
+            }
+            putFacts(hasher, Bits.toIds(initialState));
+            fingerprint = hasher.hash();
+        }
+        return fingerprint;
+    }
+
+    private void putFacts(Hasher hasher, int[] ids) {
+        hasher.putInt(ids.length);
+        for (int id : ids) {
+            hasher.putInt(id);
+            putString(hasher, getSymbols().fact(id).toString());
+        }
+    }
+
+    private static void putString(Hasher hasher, String string) {
+        hasher.putInt(string.length()).putUnencodedChars(string);
+    }
+
+    @Override
+    public String toString() {
+        return actions.size() + " ground actions, " + getSymbols().size() + " facts";
+    }
+}
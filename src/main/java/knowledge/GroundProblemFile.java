@@ -0,0 +1,296 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary form of a grounded problem, written once and then loaded instead of parsing and grounding again.
+ * It holds the schemas (actions, types, constraints), the symbol table as symbols and packed predicates, the initial
+ * state bitset and the ground actions as flat id arrays. Loading maps the file and copies these arrays out in bulk:
+ * the symbol table and the initial state are rebuilt without creating an object per fact (the initial state of the
+ * loaded problem is a view unpacking its facts on demand), only the ground actions get an object each.
+ * Layout, big endian: header, schemas, names, constants, predicates, wide predicates (offsets and symbols), initial
+ * state, action symbols, action predicates (symbol offsets and symbols), preconditions (offsets and ids), effects
+ * (offsets and ids).
+ */
+public final class GroundProblemFile {
+    private static final int MAGIC = 0x52504750;
+    private static final int VERSION = 2;
+
+    private GroundProblemFile() {
+    }
+
+    public static void write(GroundProblem groundProblem, Path file) throws IOException {
+        Problem problem = groundProblem.getProblem();
+        SymbolTable symbols = groundProblem.getSymbols();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(problem.getTypes().size());
+            for (TypeDeclaration type : problem.getTypes()) {
+                writeStrings(out, type.getSource());
+                writeStrings(out, type.getDestination());
+            }
+            out.writeInt(problem.getActions().size());
+            for (Action action : problem.getActions()) {
+                writePredicate(out, action.getPredicate());
+                writeFacts(out, action.getPreconditions());
+                writeFacts(out, action.getEffects());
+            }
+            out.writeInt(problem.getConstraints().size());
+            for (Constraint constraint : problem.getConstraints()) {
+                writePredicate(out, constraint.getAntecendent());
+                writeFacts(out, constraint.getConsequents());
+            }
+            writeStrings(out, symbols.names());
+            writeStrings(out, symbols.constants());
+            writeLongs(out, symbols.predicates());
+            writeWide(out, symbols.widePredicates());
+            writeLongs(out, groundProblem.getInitialState());
+            writeActions(out, groundProblem.getActions());
+        }
+    }
+
+    /**
+     * Problem of the file, already grounded: its ground problem and symbol table are the ones read from the file
+     */
+    public static Problem load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 8 || in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a ground problem file");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has version " + version + ", expected " + VERSION);
+            }
+            try {
+                return read(in);
+            } catch (BufferUnderflowException | NegativeArraySizeException | IndexOutOfBoundsException e) {
+                // Counts and offsets of a truncated or damaged file point past its end
+                throw new IOException(file + " is corrupt", e);
+            }
+        }
+    }
+
+    private static Problem read(ByteBuffer in) {
+        ImmutableSet.Builder<TypeDeclaration> types = ImmutableSet.builder();
+        for (int i = in.getInt(); i > 0; i--) {
+            types.add(TypeDeclaration.builder()
+                    .setSource(ImmutableSet.copyOf(readStrings(in)))
+                    .setDestination(ImmutableSet.copyOf(readStrings(in)))
+                    .build());
+        }
+        ImmutableSet.Builder<Action> actions = ImmutableSet.builder();
+        for (int i = in.getInt(); i > 0; i--) {
+            actions.add(Action.builder()
+                    .setPredicate(readPredicate(in))
+                    .setPreconditions(readFacts(in))
+                    .setEffects(readFacts(in))
+                    .build());
+        }
+        ImmutableSet.Builder<Constraint> constraints = ImmutableSet.builder();
+        for (int i = in.getInt(); i > 0; i--) {
+            constraints.add(Constraint.builder()
+                    .setAntecendent(readPredicate(in))
+                    .setConsequents(readFacts(in))
+                    .build());
+        }
+        SymbolTable symbols = new SymbolTable(readStrings(in), readStrings(in), readLongs(in), readWide(in));
+        long[] initialState = readLongs(in);
+        Problem problem = Problem.builder()
+                .setTypes(types.build())
+                .setActions(actions.build())
+                .setConstraints(constraints.build())
+                .setInitialState(State.builder().setState(new FactSetView(symbols, initialState)).build())
+                .build();
+        GroundProblem groundProblem = new GroundProblem(problem, readActions(in), initialState);
+        problem.preset(symbols, groundProblem);
+        return problem;
+    }
+
+    private static void writeActions(DataOutputStream out, List<GroundAction> actions) throws IOException {
+        // Names and arguments of the ground actions, which are not all in the symbol table
+        Map<String, Integer> symbolIds = new LinkedHashMap<>();
+        int[] predicateOffsets = new int[actions.size() + 1];
+        List<Integer> predicateSymbols = new ArrayList<>();
+        for (GroundAction action : actions) {
+            Predicate predicate = action.getPredicate();
+            predicateSymbols.add(symbolIds.computeIfAbsent(predicate.getName(), s -> symbolIds.size()));
+            for (String argument : predicate.getArguments()) {
+                predicateSymbols.add(symbolIds.computeIfAbsent(argument, s -> symbolIds.size()));
+            }
+            predicateOffsets[action.getId() + 1] = predicateSymbols.size();
+        }
+        writeStrings(out, symbolIds.keySet());
+        writeInts(out, predicateOffsets);
+        writeInts(out, predicateSymbols.stream().mapToInt(Integer::intValue).toArray());
+        writeIdArrays(out, actions, true);
+        writeIdArrays(out, actions, false);
+    }
+
+    private static ImmutableList<GroundAction> readActions(ByteBuffer in) {
+        List<String> symbols = readStrings(in);
+        int[] predicateOffsets = readInts(in);
+        int[] predicateSymbols = readInts(in);
+        int[] preconditionOffsets = readInts(in);
+        int[] preconditions = readInts(in);
+        int[] effectOffsets = readInts(in);
+        int[] effects = readInts(in);
+        ImmutableList.Builder<GroundAction> actions = ImmutableList.builder();
+        for (int id = 0; id + 1 < predicateOffsets.length; id++) {
+            ImmutableList.Builder<String> arguments = ImmutableList.builder();
+            for (int i = predicateOffsets[id] + 1; i < predicateOffsets[id + 1]; i++) {
+                arguments.add(symbols.get(predicateSymbols[i]));
+            }
+            actions.add(GroundAction.builder()
+                    .setId(id)
+                    .setPredicate(Predicate.builder()
+                            .setName(symbols.get(predicateSymbols[predicateOffsets[id]]))
+                            .setArguments(arguments.build())
+                            .build())
+                    .setPreconditions(Arrays.copyOfRange(preconditions, preconditionOffsets[id], preconditionOffsets[id + 1]))
+                    .setEffects(Arrays.copyOfRange(effects, effectOffsets[id], effectOffsets[id + 1]))
+                    .build());
+        }
+        return actions.build();
+    }
+
+    private static void writeWide(DataOutputStream out, List<int[]> predicates) throws IOException {
+        int[] offsets = new int[predicates.size() + 1];
+        for (int i = 0; i < predicates.size(); i++) {
+            offsets[i + 1] = offsets[i] + predicates.get(i).length;
+        }
+        writeInts(out, offsets);
+        out.writeInt(offsets[predicates.size()]);
+        for (int[] symbols : predicates) {
+            for (int symbol : symbols) {
+                out.writeInt(symbol);
+            }
+        }
+    }
+
+    private static List<int[]> readWide(ByteBuffer in) {
+        int[] offsets = readInts(in);
+        int[] symbols = readInts(in);
+        List<int[]> predicates = new ArrayList<>(offsets.length);
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            predicates.add(Arrays.copyOfRange(symbols, offsets[i], offsets[i + 1]));
+        }
+        return predicates;
+    }
+
+    /**
+     * Preconditions or effects of all the actions, as offsets by action id followed by the concatenated ids
+     */
+    private static void writeIdArrays(DataOutputStream out, List<GroundAction> actions, boolean preconditions) throws IOException {
+        int[] offsets = new int[actions.size() + 1];
+        for (GroundAction action : actions) {
+            int[] ids = preconditions ? action.getPreconditions() : action.getEffects();
+            offsets[action.getId() + 1] = offsets[action.getId()] + ids.length;
+        }
+        writeInts(out, offsets);
+        out.writeInt(offsets[actions.size()]);
+        for (GroundAction action : actions) {
+            for (int id : preconditions ? action.getPreconditions() : action.getEffects()) {
+                out.writeInt(id);
+            }
+        }
+    }
+
+    private static void writePredicate(DataOutputStream out, Predicate predicate) throws IOException {
+        writeString(out, predicate.getName());
+        writeStrings(out, predicate.getArguments());
+    }
+
+    private static Predicate readPredicate(ByteBuffer in) {
+        String name = readString(in);
+        return Predicate.builder().setName(name).setArguments(ImmutableList.copyOf(readStrings(in))).build();
+    }
+
+    private static void writeFacts(DataOutputStream out, Set<Fact> facts) throws IOException {
+        out.writeInt(facts.size());
+        for (Fact fact : facts) {
+            out.writeBoolean(fact.getSign());
+            writePredicate(out, fact.getPredicate());
+        }
+    }
+
+    private static Set<Fact> readFacts(ByteBuffer in) {
+        ImmutableSet.Builder<Fact> facts = ImmutableSet.builder();
+        for (int i = in.getInt(); i > 0; i--) {
+            boolean sign = in.get() != 0;
+            facts.add(Fact.builder().setSign(sign).setPredicate(readPredicate(in)).build());
+        }
+        return facts.build();
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * values.length);
+        return values;
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + 8 * values.length);
+        return values;
+    }
+}
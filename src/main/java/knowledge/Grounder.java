@@ -0,0 +1,215 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Grounds the actions of a problem in one pass, only instantiating the actions whose positive preconditions are
+ * reachable from the initial state when deletes are ignored.
+ * Bindings come from joining the positive preconditions of each action against the reached facts, semi-naively:
+ * in every round each new grounding uses at least one fact reached in the previous round, so the cartesian
+ * product of the type domains is never built. Variables that no positive precondition binds
+ * (e.g. Q in "fill X Q: clear X -> filled X Q") still range over their declared type, and as in
+ * {@link Action#instantiate(Problem)} a variable without a declared type leaves the action with no groundings.
+ */
+final class Grounder {
+    private final Problem problem;
+    private final SymbolTable symbols;
+    // Reached positive facts by name and arity, with the round in which they were reached
+    private final Map<String, List<Predicate>> reached = new HashMap<>();
+    private final Map<Predicate, Integer> reachedInRound = new HashMap<>();
+    private final Set<Action> groundedActions = new HashSet<>();
+    private final ImmutableList.Builder<GroundAction> actions = ImmutableList.builder();
+    private int actionCount = 0;
+
+    private Grounder(Problem problem) {
+        this.problem = problem;
+        this.symbols = problem.getSymbolTable();
+    }
+
+    static GroundProblem ground(Problem problem) {
+        return new Grounder(problem).ground();
+    }
+
+    private GroundProblem ground() {
+        long[] initialState = Bits.empty();
+        for (Fact fact : problem.getInitialState().getState()) {
+            initialState = Bits.set(initialState, symbols.id(fact));
+            if (fact.getSign()) {
+                reach(fact.getPredicate(), 0);
+            }
+        }
+        List<Compiled> schemas = problem.getActions().stream()
+                .filter(schema -> schema.allVars().stream().noneMatch(var -> problem.domainOf(var).isEmpty()))
+                .map(Compiled::new)
+                .collect(Collectors.toList());
+        int round = 1;
+        boolean reachedNewFacts = true;
+        while (reachedNewFacts) {
+            int before = reachedInRound.size();
+            for (Compiled schema : schemas) {
+                groundSchema(schema, round);
+            }
+            reachedNewFacts = reachedInRound.size() > before;
+            round++;
+        }
+        return new GroundProblem(problem, actions.build(), initialState);
+    }
+
+    private void groundSchema(Compiled compiled, int round) {
+        if (compiled.positives.length == 0) {
+            if (round == 1) {
+                bindFreeVariables(compiled, 0, round);
+            }
+            return;
+        }
+        for (int pivot = 0; pivot < compiled.positives.length; pivot++) {
+            join(compiled, pivot, 0, round);
+        }
+    }
+
+    /**
+     * Matches positives[index] and the following preconditions against the reached facts.
+     * Preconditions before the pivot only use facts older than the previous round, the pivot only facts of the
+     * previous round and the ones after it any fact reached before this round.
+     */
+    private void join(Compiled compiled, int pivot, int index, int round) {
+        if (index == compiled.positives.length) {
+            bindFreeVariables(compiled, 0, round);
+            return;
+        }
+        PredicatePattern pattern = compiled.positives[index];
+        int[] bound = compiled.bound[index];
+        List<Predicate> candidates = reached.getOrDefault(compiled.keys[index], Collections.emptyList());
+        // Most recently reached facts first. Facts reached in this round are appended at the end and can't be used
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            Predicate candidate = candidates.get(i);
+            int candidateRound = reachedInRound.get(candidate);
+            boolean usable = index < pivot ? candidateRound < round - 1
+                    : index == pivot ? candidateRound == round - 1
+                    : candidateRound < round;
+            if (!usable) {
+                continue;
+            }
+            int count = pattern.bind(candidate, compiled.bindings, bound);
+            if (count >= 0) {
+                if (inDomains(compiled, bound, count)) {
+                    join(compiled, pivot, index + 1, round);
+                }
+                PredicatePattern.unbind(compiled.bindings, bound, count);
+            }
+        }
+    }
+
+    private static boolean inDomains(Compiled compiled, int[] bound, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!compiled.domains.get(bound[i]).contains(compiled.bindings[bound[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binds the variables still unbound from slot on to every value of their types
+     */
+    private void bindFreeVariables(Compiled compiled, int slot, int round) {
+        String[] bindings = compiled.bindings;
+        while (slot < bindings.length && bindings[slot] != null) {
+            slot++;
+        }
+        if (slot == bindings.length) {
+            if (compiled.schema.wellFormed(bindings)) {
+                addGrounding(compiled.schema.instantiate(bindings), round);
+            }
+            return;
+        }
+        for (String value : compiled.domains.get(slot)) {
+            bindings[slot] = value;
+            bindFreeVariables(compiled, slot + 1, round);
+        }
+        bindings[slot] = null;
+    }
+
+    private void addGrounding(Action action, int round) {
+        if (!groundedActions.add(action)) {
+            return;
+        }
+        Set<Fact> effects = new LinkedHashSet<>(action.getEffects());
+        effects.addAll(action.constraintEffects(problem));
+        for (Fact effect : effects) {
+            if (effect.getSign()) {
+                reach(effect.getPredicate(), round);
+            }
+        }
+        actions.add(GroundAction.builder()
+                .setId(actionCount++)
+                .setPredicate(action.getPredicate())
+                .setPreconditions(ids(action.getPreconditions()))
+                .setEffects(ids(effects))
+                .build());
+    }
+
+    private void reach(Predicate predicate, int round) {
+        if (!reachedInRound.containsKey(predicate)) {
+            reachedInRound.put(predicate, round);
+            reached.computeIfAbsent(key(predicate), k -> new ArrayList<>()).add(predicate);
+        }
+    }
+
+    private int[] ids(Set<Fact> facts) {
+        int[] ids = new int[facts.size()];
+        int i = 0;
+        for (Fact fact : facts) {
+            ids[i++] = symbols.id(fact);
+        }
+        return ids;
+    }
+
+    private static String key(Predicate predicate) {
+        return predicate.getName() + "/" + predicate.getArguments().size();
+    }
+
+    /**
+     * An action schema with its positive preconditions, the binding array shared by the whole join and, for each
+     * precondition, the slots it bound
+     */
+    private final class Compiled {
+        private final ActionSchema schema;
+        private final PredicatePattern[] positives;
+        private final String[] keys;
+        private final int[][] bound;
+        private final List<Set<String>> domains;
+        private final String[] bindings;
+
+        @SuppressWarnings("unchecked")
+        Compiled(Action action) {
+            this.schema = action.schema();
+            List<PredicatePattern> positiveList = new ArrayList<>();
+            List<String> keyList = new ArrayList<>();
+            for (int i = 0; i < schema.preconditions.length; i++) {
+                if (schema.preconditionSigns[i]) {
+                    positiveList.add(schema.preconditions[i]);
+                }
+            }
+            for (Fact precondition : action.getPreconditions()) {
+                if (precondition.getSign()) {
+                    keyList.add(key(precondition.getPredicate()));
+                }
+            }
+            this.positives = positiveList.toArray(new PredicatePattern[0]);
+            this.keys = keyList.toArray(new String[0]);
+            this.bound = new int[positives.length][];
+            for (int i = 0; i < positives.length; i++) {
+                bound[i] = new int[positives[i].arity()];
+            }
+            this.domains = new ArrayList<>(schema.variables.size());
+            for (String variable : schema.variables) {
+                domains.add(problem.domainOf(variable));
+            }
+            this.bindings = schema.newBindings();
+        }
+    }
+}
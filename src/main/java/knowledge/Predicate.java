@@ -73,7 +73,7 @@ public abstract class Predicate {
         }
     }
 
-    private static boolean isVariable(String arg) {
+    static boolean isVariable(String arg) {
         return Character.isUpperCase(arg.charAt(0));
     }
 
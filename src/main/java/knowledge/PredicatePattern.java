@@ -0,0 +1,108 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Predicate of a schema with its arguments compiled against the variables of the schema: each variable is a slot
+ * of a binding array holding its value, null while unbound. Matching and checking only read and write that array,
+ * so they allocate nothing; only instantiate creates the resulting predicate.
+ */
+final class PredicatePattern {
+    private final String name;
+    private final String[] arguments;
+    // Slot of each argument, -1 for a constant
+    private final int[] slots;
+
+    PredicatePattern(Predicate predicate, List<String> variables) {
+        this.name = predicate.getName();
+        this.arguments = predicate.getArguments().toArray(new String[0]);
+        this.slots = new int[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            slots[i] = Predicate.isVariable(arguments[i]) ? variables.indexOf(arguments[i]) : -1;
+        }
+    }
+
+    int arity() {
+        return arguments.length;
+    }
+
+    /**
+     * Binds the unbound slots of the pattern to the arguments of the predicate, writing the slots it bound to
+     * bound (at least arity long). Returns how many, or -1 if the predicate doesn't match, the bindings being then
+     * left as they were
+     */
+    int bind(Predicate predicate, String[] bindings, int[] bound) {
+        List<String> values = predicate.getArguments();
+        if (!name.equals(predicate.getName()) || values.size() != arguments.length) {
+            return -1;
+        }
+        int count = 0;
+        for (int i = 0; i < arguments.length; i++) {
+            String value = values.get(i);
+            int slot = slots[i];
+            String expected = slot < 0 ? arguments[i] : bindings[slot];
+            if (expected == null) {
+                bindings[slot] = value;
+                bound[count++] = slot;
+            } else if (!expected.equals(value)) {
+                unbind(bindings, bound, count);
+                return -1;
+            }
+        }
+        return count;
+    }
+
+    static void unbind(String[] bindings, int[] bound, int count) {
+        for (int i = 0; i < count; i++) {
+            bindings[bound[i]] = null;
+        }
+    }
+
+    /**
+     * Argument as instantiated by the bindings, the variable itself if unbound
+     */
+    String argument(int i, String[] bindings) {
+        int slot = slots[i];
+        return slot < 0 || bindings[slot] == null ? arguments[i] : bindings[slot];
+    }
+
+    /**
+     * Same as Predicate.wellFormed on the instantiated predicate: no argument appears twice
+     */
+    boolean wellFormed(String[] bindings) {
+        for (int i = 1; i < arguments.length; i++) {
+            String argument = argument(i, bindings);
+            for (int j = 0; j < i; j++) {
+                if (argument.equals(argument(j, bindings))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if the instantiations of both patterns are the same predicate
+     */
+    boolean sameAs(PredicatePattern other, String[] bindings, String[] otherBindings) {
+        if (!name.equals(other.name) || arguments.length != other.arguments.length) {
+            return false;
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            if (!argument(i, bindings).equals(other.argument(i, otherBindings))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Predicate instantiate(String[] bindings) {
+        String[] values = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = argument(i, bindings);
+        }
+        return Predicate.builder().setName(name).setArguments(ImmutableList.copyOf(values)).build();
+    }
+}
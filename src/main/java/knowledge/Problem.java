@@ -3,12 +3,24 @@ package knowledge;
 import autovalue.shaded.com.google.common.common.collect.Sets;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @AutoValue
 public abstract class Problem {
+    private SymbolTable symbolTable;
+    private GroundProblem groundProblem;
+    private ConstraintIndex constraintIndex;
+    private HashCode fingerprint;
+    // Domains of the variables asked about so far
+    private final Map<String, Set<String>> domains = new ConcurrentHashMap<>();
+
     public abstract Set<Action> getActions();
 
     public abstract State getInitialState();
@@ -21,6 +33,74 @@ public abstract class Problem {
         return new AutoValue_Problem.Builder();
     }
 
+    /**
+     * Symbol table shared by everything planning on this problem, created on first use
+     */
+    public synchronized SymbolTable getSymbolTable() {
+        if (symbolTable == null) {
+            symbolTable = new SymbolTable();
+        }
+        return symbolTable;
+    }
+
+    /**
+     * Grounded version of this problem, computed once on first use
+     */
+    public synchronized GroundProblem getGroundProblem() {
+        if (groundProblem == null) {
+            groundProblem = Grounder.ground(this);
+        }
+        return groundProblem;
+    }
+
+    /**
+     * Consequents of the constraints by ground fact, created on first use
+     */
+    synchronized ConstraintIndex getConstraintIndex() {
+        if (constraintIndex == null) {
+            constraintIndex = new ConstraintIndex(this);
+        }
+        return constraintIndex;
+    }
+
+    /**
+     * 128 bit hash of the problem in a canonical form (every set sorted), computed once: equal problems have the
+     * same fingerprint whatever the order of their sets, and different ones only share it through a hash collision
+     */
+    public synchronized HashCode getFingerprint() {
+        if (fingerprint == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            putSorted(hasher, getTypes().stream().map(type -> sorted(type.getSource()) + ": " + sorted(type.getDestination())));
+            putSorted(hasher, getActions().stream().map(action -> action.getPredicate() + ": "
+                    + sorted(action.getPreconditions()) + " -> " + sorted(action.getEffects())));
+            putSorted(hasher, getConstraints().stream().map(constraint -> constraint.getAntecendent() + " -> "
+                    + sorted(constraint.getConsequents())));
+            putSorted(hasher, getInitialState().getState().stream().map(Fact::toString));
+            fingerprint = hasher.hash();
+        }
+        return fingerprint;
+    }
+
+    private static String sorted(Set<?> values) {
+        return values.stream().map(Object::toString).sorted().collect(Collectors.joining(", "));
+    }
+
+    private static void putSorted(Hasher hasher, Stream<String> values) {
+        List<String> sorted = values.sorted().collect(Collectors.toList());
+        hasher.putInt(sorted.size());
+        for (String value : sorted) {
+            hasher.putInt(value.length()).putUnencodedChars(value);
+        }
+    }
+
+    /**
+     * Installs an already built symbol table and grounding, e.g. loaded by GroundProblemFile
+     */
+    synchronized void preset(SymbolTable symbolTable, GroundProblem groundProblem) {
+        this.symbolTable = symbolTable;
+        this.groundProblem = groundProblem;
+    }
+
     // Returns a set of unified actions (so variables are instantiated)
     public Set<Action> matchingActionsFor(Fact currentGoal) {
         return getActions().stream().map(action -> action.match(currentGoal))
@@ -30,26 +110,32 @@ public abstract class Problem {
     }
 
     public Set<Unification> instantiateVariable(String var) {
-        Set<String> destinations = getTypes().stream()
-                .filter(typeDeclaration -> typeDeclaration.getSource().contains(var))
-                .map(TypeDeclaration::getDestination)
-                .findFirst()
-                .orElse(Collections.emptySet());
         HashSet<Unification> output = new HashSet<>();
-        for(String destination : destinations) {
+        for(String destination : domainOf(var)) {
             output.add(Unification.builder().setValid(true).setSubstitutions(ImmutableMap.of(var, destination)).build());
         }
         return output;
     }
 
+    // Constants a variable can be instantiated with, empty if its type is not declared
+    Set<String> domainOf(String var) {
+        return domains.computeIfAbsent(var, v -> getTypes().stream()
+                .filter(typeDeclaration -> typeDeclaration.getSource().contains(v))
+                .map(TypeDeclaration::getDestination)
+                .findFirst()
+                .orElse(Collections.emptySet()));
+    }
+
     Set<Unification> instantiateVariables(Set<String> vars) {
         List<Set<Unification>> instantiatedArgs = vars.stream().map(this::instantiateVariable).collect(Collectors.toList());
         // e. g. instantiatedArgs = [ {X/s1, X/s2}, {Y/s1, Y/s2} ]
         Set<List<Unification>> allInstantiations = Sets.cartesianProduct(instantiatedArgs);
-        // e. g. allInstantiations = { [X/s1, Y/s1], [X/s1, Y/s2] }
-        return allInstantiations.stream().map(
-                instantiation -> instantiation.stream().reduce(Unification.empty(), Unification::merge)
-                ).collect(Collectors.toSet());
+        // e. g. allInstantiations = { [X/s1, Y/s1], [X/s1, Y/s2] }, each merged into one map
+        return allInstantiations.stream().map(instantiation -> {
+            Map<String, String> substitutions = new HashMap<>();
+            instantiation.forEach(unification -> substitutions.putAll(unification.getSubstitutions()));
+            return Unification.builder().setValid(true).setSubstitutions(substitutions).build();
+        }).collect(Collectors.toSet());
     }
 
     @AutoValue.Builder
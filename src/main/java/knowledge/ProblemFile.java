@@ -0,0 +1,28 @@
+package knowledge;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.Set;
+
+/**
+ * Problem and goals read from a problem file, see {@link ProblemParser}
+ */
+@AutoValue
+public abstract class ProblemFile {
+    public abstract Problem getProblem();
+
+    public abstract Set<Fact> getGoals();
+
+    public static Builder builder() {
+        return new AutoValue_ProblemFile.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder setProblem(Problem newProblem);
+
+        public abstract Builder setGoals(Set<Fact> newGoals);
+
+        public abstract ProblemFile build();
+    }
+}
@@ -0,0 +1,243 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a problem file in one pass. The file is made of sections, each opened by its name and a colon alone on
+ * a line and holding one statement per line, written as for the parse methods of the corresponding classes:
+ * <pre>
+ * types:
+ *   X, Y: s1, s2, s3
+ * actions:
+ *   stack X Y: holding X, clear Y -> handempty, on X Y, not holding X, not clear Y
+ * constraints:
+ *   on X Y -> not on X Z
+ * initial:
+ *   on s1 s2
+ *   handempty
+ * goals:
+ *   on s2 s1
+ * </pre>
+ * A line ending with "," or "->" goes on with the next one and "#" starts a comment. Sections can come in any
+ * order, more than once, or not at all, and their names can't start a statement. Errors are reported as
+ * ProblemSyntaxException.
+ */
+public final class ProblemParser {
+    private static final String TYPES = "types";
+    private static final String ACTIONS = "actions";
+    private static final String CONSTRAINTS = "constraints";
+    private static final String INITIAL = "initial";
+    private static final String GOALS = "goals";
+
+    private final ProblemTokenizer tokens;
+    private final ImmutableSet.Builder<TypeDeclaration> types = ImmutableSet.builder();
+    private final ImmutableSet.Builder<Action> actions = ImmutableSet.builder();
+    private final ImmutableSet.Builder<Constraint> constraints = ImmutableSet.builder();
+    private final ImmutableSet.Builder<Fact> initialState = ImmutableSet.builder();
+    private final ImmutableSet.Builder<Fact> goals = ImmutableSet.builder();
+
+    private ProblemParser(Reader reader) {
+        this.tokens = new ProblemTokenizer(reader);
+    }
+
+    public static ProblemFile parse(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static ProblemFile parse(Reader reader) throws IOException {
+        return new ProblemParser(reader).parse();
+    }
+
+    private ProblemFile parse() throws IOException {
+        String section = null;
+        while (tokens.peek() != ProblemTokenizer.Type.END) {
+            if (tokens.peek() == ProblemTokenizer.Type.NEWLINE) {
+                tokens.next();
+            } else if (isSectionName()) {
+                section = tokens.word();
+                tokens.next();
+                expect(ProblemTokenizer.Type.COLON, "\":\" after section " + section);
+                endOfStatement();
+            } else if (section == null) {
+                throw error("Expected a section: " + TYPES + ", " + ACTIONS + ", " + CONSTRAINTS + ", "
+                        + INITIAL + " or " + GOALS);
+            } else {
+                statement(section);
+                endOfStatement();
+            }
+        }
+        Problem problem = Problem.builder()
+                .setTypes(types.build())
+                .setActions(actions.build())
+                .setConstraints(constraints.build())
+                .setInitialState(State.builder().setState(initialState.build()).build())
+                .build();
+        return ProblemFile.builder().setProblem(problem).setGoals(goals.build()).build();
+    }
+
+    private boolean isSectionName() throws IOException {
+        if (tokens.peek() != ProblemTokenizer.Type.WORD) {
+            return false;
+        }
+        return isSectionName(tokens.word());
+    }
+
+    private static boolean isSectionName(String name) {
+        return name.equals(TYPES) || name.equals(ACTIONS) || name.equals(CONSTRAINTS)
+                || name.equals(INITIAL) || name.equals(GOALS);
+    }
+
+    private void statement(String section) throws IOException {
+        switch (section) {
+            case TYPES:
+                types.add(typeDeclaration());
+                break;
+            case ACTIONS:
+                actions.add(action());
+                break;
+            case CONSTRAINTS:
+                constraints.add(constraint());
+                break;
+            case INITIAL:
+                facts(initialState);
+                break;
+            default:
+                facts(goals);
+        }
+    }
+
+    private TypeDeclaration typeDeclaration() throws IOException {
+        ImmutableSet.Builder<String> source = ImmutableSet.builder();
+        ImmutableSet.Builder<String> destination = ImmutableSet.builder();
+        words(source);
+        expect(ProblemTokenizer.Type.COLON, "\":\" after the type variables");
+        words(destination);
+        return TypeDeclaration.builder().setSource(source.build()).setDestination(destination.build()).build();
+    }
+
+    private Action action() throws IOException {
+        Predicate predicate = predicate();
+        expect(ProblemTokenizer.Type.COLON, "\":\" after the action name");
+        ImmutableSet.Builder<Fact> preconditions = ImmutableSet.builder();
+        facts(preconditions);
+        expect(ProblemTokenizer.Type.ARROW, "\"->\" after the preconditions");
+        ImmutableSet.Builder<Fact> effects = ImmutableSet.builder();
+        facts(effects);
+        return Action.builder()
+                .setPredicate(predicate)
+                .setPreconditions(preconditions.build())
+                .setEffects(effects.build())
+                .build();
+    }
+
+    private Constraint constraint() throws IOException {
+        Predicate antecedent = predicate();
+        expect(ProblemTokenizer.Type.ARROW, "\"->\" after the constraint antecedent");
+        ImmutableSet.Builder<Fact> consequents = ImmutableSet.builder();
+        facts(consequents);
+        return Constraint.builder().setAntecendent(antecedent).setConsequents(consequents.build()).build();
+    }
+
+    /**
+     * Comma separated words, at least one
+     */
+    private void words(ImmutableSet.Builder<String> words) throws IOException {
+        do {
+            words.add(word("a name"));
+        } while (comma());
+    }
+
+    /**
+     * Comma separated facts, possibly none
+     */
+    private void facts(ImmutableSet.Builder<Fact> facts) throws IOException {
+        if (tokens.peek() != ProblemTokenizer.Type.WORD) {
+            return;
+        }
+        do {
+            facts.add(fact());
+        } while (comma());
+    }
+
+    private Fact fact() throws IOException {
+        int line = tokens.line();
+        int column = tokens.column();
+        String first = word("a fact");
+        boolean negated = first.equals(Constants.NOT) && tokens.peek() == ProblemTokenizer.Type.WORD;
+        Predicate predicate = negated ? predicate() : predicateStartingWith(first, line, column);
+        return Fact.builder().setPredicate(predicate).setSign(!negated).build();
+    }
+
+    private Predicate predicate() throws IOException {
+        int line = tokens.line();
+        int column = tokens.column();
+        return predicateStartingWith(word("a predicate"), line, column);
+    }
+
+    private Predicate predicateStartingWith(String name, int line, int column) throws IOException {
+        ImmutableList.Builder<String> arguments = ImmutableList.builder();
+        while (tokens.peek() == ProblemTokenizer.Type.WORD) {
+            arguments.add(tokens.word());
+            tokens.next();
+        }
+        if (isSectionName(name)) {
+            // Most likely a statement ended with "," or "->" and went on to the next section
+            throw new ProblemSyntaxException("Expected a predicate, found section " + name, line, column);
+        }
+        if (Predicate.isVariable(name)) {
+            throw new ProblemSyntaxException("A predicate name can't start with an upper case letter: " + name, line, column);
+        }
+        return Predicate.builder().setName(name).setArguments(arguments.build()).build();
+    }
+
+    private String word(String expected) throws IOException {
+        if (tokens.peek() != ProblemTokenizer.Type.WORD) {
+            throw error("Expected " + expected);
+        }
+        String word = tokens.word();
+        tokens.next();
+        return word;
+    }
+
+    private boolean comma() throws IOException {
+        if (tokens.peek() == ProblemTokenizer.Type.COMMA) {
+            tokens.next();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(ProblemTokenizer.Type type, String expected) throws IOException {
+        if (tokens.peek() != type) {
+            throw error("Expected " + expected);
+        }
+        tokens.next();
+    }
+
+    private void endOfStatement() throws IOException {
+        ProblemTokenizer.Type next = tokens.peek();
+        if (next != ProblemTokenizer.Type.NEWLINE && next != ProblemTokenizer.Type.END) {
+            throw error("Expected the end of the line");
+        }
+    }
+
+    private ProblemSyntaxException error(String message) throws IOException {
+        ProblemTokenizer.Type found = tokens.peek();
+        String what = found == ProblemTokenizer.Type.WORD ? "\"" + tokens.word() + "\""
+                : found == ProblemTokenizer.Type.NEWLINE ? "end of line"
+                : found == ProblemTokenizer.Type.END ? "end of file"
+                : found == ProblemTokenizer.Type.COMMA ? "\",\""
+                : found == ProblemTokenizer.Type.COLON ? "\":\"" : "\"->\"";
+        return new ProblemSyntaxException(message + ", found " + what, tokens.line(), tokens.column());
+    }
+}
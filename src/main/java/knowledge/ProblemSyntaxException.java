@@ -0,0 +1,25 @@
+package knowledge;
+
+/**
+ * Error in a problem file, at a 1-based line and column
+ */
+public class ProblemSyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    public ProblemSyntaxException(String message, int line, int column) {
+        super(line + ":" + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
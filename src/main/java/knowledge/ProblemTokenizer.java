@@ -0,0 +1,233 @@
+package knowledge;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits a problem file into words, ",", ":", "->" and ends of line, reading the characters once through a buffer.
+ * Words are interned as they are read: a word seen before is looked up straight from the characters, so the
+ * hundreds of thousands of repetitions of the same names and constants in a large file become one String each.
+ * "#" starts a comment running to the end of the line. Ends of line right after "," or "->" are skipped, so a
+ * statement can go on over several lines. Positions are 1-based.
+ */
+final class ProblemTokenizer {
+    enum Type {
+        WORD, COMMA, COLON, ARROW, NEWLINE, END
+    }
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int column = 1;
+
+    // Token read ahead, if any
+    private Type peeked;
+    // Last token consumed
+    private Type last;
+    private String peekedWord;
+    private int peekedLine;
+    private int peekedColumn;
+
+    private char[] word = new char[64];
+    // Open addressing table of the interned words, its length a power of two
+    private String[] words = new String[1024];
+    private int wordCount;
+
+    ProblemTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    Type peek() throws IOException {
+        if (peeked == null) {
+            read();
+        }
+        return peeked;
+    }
+
+    /**
+     * Consumes the next token, returning it
+     */
+    Type next() throws IOException {
+        Type type = peek();
+        last = type;
+        peeked = null;
+        return type;
+    }
+
+    /**
+     * Word of the last token peeked or consumed, if it was a word
+     */
+    String word() {
+        return peekedWord;
+    }
+
+    /**
+     * Position of the next token
+     */
+    int line() throws IOException {
+        peek();
+        return peekedLine;
+    }
+
+    int column() throws IOException {
+        peek();
+        return peekedColumn;
+    }
+
+    private void read() throws IOException {
+        int c = skipBlanks();
+        boolean continued = last == Type.COMMA || last == Type.ARROW;
+        while (continued && c == '\n') {
+            advance();
+            c = skipBlanks();
+        }
+        peekedLine = line;
+        peekedColumn = column;
+        peekedWord = null;
+        if (c == EOF) {
+            peeked = Type.END;
+        } else if (c == '\n') {
+            advance();
+            peeked = Type.NEWLINE;
+        } else if (c == ',') {
+            advance();
+            peeked = Type.COMMA;
+        } else if (c == ':') {
+            advance();
+            peeked = Type.COLON;
+        } else if (c == '-' && lookAhead(1) == '>') {
+            advance();
+            advance();
+            peeked = Type.ARROW;
+        } else {
+            peekedWord = readWord();
+            peeked = Type.WORD;
+        }
+    }
+
+    /**
+     * Skips spaces and comments, returning the next character without consuming it
+     */
+    private int skipBlanks() throws IOException {
+        while (true) {
+            int c = lookAhead(0);
+            if (c == '#') {
+                while (c != '\n' && c != EOF) {
+                    advance();
+                    c = lookAhead(0);
+                }
+            } else if (c != '\n' && c != EOF && Character.isWhitespace(c)) {
+                advance();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private String readWord() throws IOException {
+        int length = 0;
+        int hash = 0;
+        int c = lookAhead(0);
+        while (c != EOF && !Character.isWhitespace(c) && c != ',' && c != ':' && c != '#'
+                && !(c == '-' && lookAhead(1) == '>')) {
+            if (length == word.length) {
+                word = Arrays.copyOf(word, 2 * length);
+            }
+            word[length++] = (char) c;
+            hash = 31 * hash + c;
+            advance();
+            c = lookAhead(0);
+        }
+        return intern(length, hash);
+    }
+
+    /**
+     * Interned copy of the first length characters of word, hash being their String.hashCode
+     */
+    private String intern(int length, int hash) {
+        int mask = words.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for (String candidate = words[slot]; candidate != null; candidate = words[slot]) {
+            if (candidate.hashCode() == hash && sameChars(candidate, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String interned = new String(word, 0, length);
+        words[slot] = interned;
+        if (++wordCount * 2 > words.length) {
+            rehash();
+        }
+        return interned;
+    }
+
+    private boolean sameChars(String candidate, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        String[] old = words;
+        words = new String[2 * old.length];
+        int mask = words.length - 1;
+        for (String w : old) {
+            if (w != null) {
+                int hash = w.hashCode();
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (words[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                words[slot] = w;
+            }
+        }
+    }
+
+    /**
+     * Character offset characters after the current one, EOF past the end. Offset is at most 1
+     */
+    private int lookAhead(int offset) throws IOException {
+        if (position + offset >= limit && !fill()) {
+            return position + offset < limit ? buffer[position + offset] : EOF;
+        }
+        return buffer[position + offset];
+    }
+
+    /**
+     * Moves the unread characters to the start of the buffer and reads more, false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        while (limit < 2) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private void advance() {
+        if (buffer[position++] == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+    }
+}
@@ -1,29 +1,104 @@
 package knowledge;
 
-import autovalue.shaded.com.google.common.common.collect.Sets;
+import com.google.common.collect.ImmutableSet;
 import com.google.auto.value.AutoValue;
 
+import java.util.Arrays;
 import java.util.Set;
 
 @AutoValue
 public abstract class State {
+    // Last compact form computed. Its fields are final, so a thread seeing the reference sees them initialized
+    private Compact compact;
+    private static final long POSITIVE_IDS = 0x5555555555555555L;
+
     public abstract Set<Fact> getState();
 
     public static Builder builder() {
         return new AutoValue_State.Builder();
     }
 
+    /**
+     * State of the facts whose ids are in the bitset, which is copied. Facts are only created when the state is
+     * iterated, so this costs the size of the bitset rather than the number of facts
+     */
+    public static State ofIds(SymbolTable symbols, long[] facts) {
+        return builder().setState(new FactSetView(symbols, Arrays.copyOf(facts, facts.length))).build();
+    }
+
     public boolean satisfiesGOal(Fact currentGoal) {
         return getState().stream().anyMatch(fact -> currentGoal.unify(fact).isValid());
     }
 
     public boolean satisfiesAction(Action currentGoal) {
-        return getState().containsAll(currentGoal.getPositivePreconditions()) &&
-                currentGoal.getNegativePreconditions().stream().noneMatch(p -> getState().contains(p));
+        Set<Fact> state = getState();
+        for (Fact precondition : currentGoal.getPositivePreconditions()) {
+            if (!state.contains(precondition)) {
+                return false;
+            }
+        }
+        for (Fact precondition : currentGoal.getNegativePreconditions()) {
+            if (state.contains(precondition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as satisfiesAction for a ground action, on the compact form of the state
+     */
+    public boolean satisfiesAction(GroundAction action, SymbolTable symbols) {
+        return action.isApplicable(toIds(symbols));
     }
 
     public Set<Fact> preconditionSupportSet(Action currentGoal) {
-        return Sets.intersection(getState(), currentGoal.getPositivePreconditions());
+        ImmutableSet.Builder<Fact> support = ImmutableSet.builder();
+        for (Fact precondition : currentGoal.getPositivePreconditions()) {
+            if (getState().contains(precondition)) {
+                support.add(precondition);
+            }
+        }
+        return support.build();
+    }
+
+    /**
+     * Compact form of the state: the bitset of the ids of its positive facts, with constant time membership.
+     * It is kept for the next call with the same symbol table, unless some fact had no id yet, and must not be
+     * modified. A state made by ofIds only has to drop the negative ids of its bitset
+     */
+    public long[] toIds(SymbolTable symbols) {
+        Compact c = compact;
+        if (c != null && c.symbols == symbols) {
+            return c.ids;
+        }
+        long[] ids;
+        boolean complete = true;
+        Set<Fact> state = getState();
+        if (state instanceof FactSetView && ((FactSetView) state).symbols() == symbols) {
+            long[] view = ((FactSetView) state).ids();
+            ids = new long[view.length];
+            for (int i = 0; i < view.length; i++) {
+                // Positive ids are even
+                ids[i] = view[i] & POSITIVE_IDS;
+            }
+        } else {
+            ids = new long[Bits.words(symbols.size())];
+            for (Fact fact : state) {
+                if (fact.getSign()) {
+                    int id = symbols.idIfPresent(fact);
+                    if (id == SymbolTable.NOT_PRESENT) {
+                        complete = false;
+                    } else {
+                        ids = Bits.set(ids, id);
+                    }
+                }
+            }
+        }
+        if (complete) {
+            compact = new Compact(symbols, ids);
+        }
+        return ids;
     }
 
     @Override
@@ -31,6 +106,16 @@ public abstract class State {
         return getState().toString();
     }
 
+    private static final class Compact {
+        private final SymbolTable symbols;
+        private final long[] ids;
+
+        Compact(SymbolTable symbols, long[] ids) {
+            this.symbols = symbols;
+            this.ids = ids;
+        }
+    }
+
     @AutoValue.Builder
     public abstract static class Builder {
         public abstract Builder setState(Set<Fact> newState);
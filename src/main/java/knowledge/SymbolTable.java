@@ -0,0 +1,260 @@
+package knowledge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-problem table that interns predicate names and constants to dense ints.
+ * A ground predicate is packed into a long (16 bits for the name and 16 bits for each of up to three arguments,
+ * 0 meaning "no argument") and every packed predicate gets a pair of dense fact ids:
+ * 2k for the positive fact and 2k + 1 for its negation, so flipping a fact is just {@code id ^ 1}.
+ * Wider predicates don't fit: they are kept as arrays of symbols, their key being their index in that list plus one.
+ * The name bits of such a key are 0, which no packed predicate has, so both kinds share the predicate ids.
+ * Fact and Predicate (with their parse/toString) stay the boundary representation, the planner works on ids.
+ * Only the packed predicates are stored, facts are unpacked when asked for, so a table holds no object per fact
+ * and can be rebuilt from arrays (see GroundProblemFile).
+ */
+public final class SymbolTable {
+    public static final int NOT_PRESENT = -1;
+
+    static final int MAX_ARITY = 3;
+    private static final int SYMBOL_BITS = 16;
+    private static final int MAX_SYMBOLS = (1 << SYMBOL_BITS) - 1;
+    private static final long SYMBOL_MASK = MAX_SYMBOLS;
+
+    // Symbol 0 is reserved for "no argument", so both lists start with a placeholder
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> constantIds = new HashMap<>();
+    private final List<String> constants = new ArrayList<>();
+
+    // Packed predicate to predicate id, and back
+    private final LongIntMap predicateIds;
+    // Predicates with more than MAX_ARITY arguments, as the name symbol followed by the argument symbols
+    private final Map<List<Integer>, Integer> wideIndexes = new HashMap<>();
+    private final List<int[]> wide = new ArrayList<>();
+    private long[] predicates;
+    private int predicateCount;
+
+    public SymbolTable() {
+        names.add(null);
+        constants.add(null);
+        predicateIds = new LongIntMap(16);
+        predicates = new long[16];
+    }
+
+    /**
+     * Table with the given symbols (without the placeholder 0), packed predicates in id order and wide predicates
+     * in the order of their keys
+     */
+    SymbolTable(List<String> names, List<String> constants, long[] predicates, List<int[]> wide) {
+        this.names.add(null);
+        this.constants.add(null);
+        for (String name : names) {
+            intern(name, nameIds, this.names);
+        }
+        for (String constant : constants) {
+            intern(constant, constantIds, this.constants);
+        }
+        for (int[] symbols : wide) {
+            wideIndexes.put(asList(symbols), this.wide.size());
+            this.wide.add(symbols);
+        }
+        this.predicateIds = new LongIntMap(predicates.length);
+        this.predicates = predicates;
+        this.predicateCount = predicates.length;
+        for (int i = 0; i < predicates.length; i++) {
+            predicateIds.put(predicates[i], i);
+        }
+    }
+
+    /**
+     * Returns the id of the fact, interning it (and its negation) if it was never seen before
+     */
+    public synchronized int id(Fact fact) {
+        long key = pack(fact.getPredicate());
+        int predicateId = predicateIds.get(key);
+        if (predicateId == LongIntMap.ABSENT) {
+            predicateId = predicateCount++;
+            predicateIds.put(key, predicateId);
+            if (predicateId == predicates.length) {
+                predicates = Arrays.copyOf(predicates, 2 * predicates.length);
+            }
+            predicates[predicateId] = key;
+        }
+        return 2 * predicateId + (fact.getSign() ? 0 : 1);
+    }
+
+    /**
+     * Returns the id of the fact or {@link #NOT_PRESENT} if the fact was never interned.
+     * Useful for membership tests, a fact that has no id can't be part of any encoded set.
+     */
+    public synchronized int idIfPresent(Fact fact) {
+        Long key = packIfPresent(fact.getPredicate());
+        if (key == null) {
+            return NOT_PRESENT;
+        }
+        int predicateId = predicateIds.get(key);
+        return predicateId == LongIntMap.ABSENT ? NOT_PRESENT : 2 * predicateId + (fact.getSign() ? 0 : 1);
+    }
+
+    /**
+     * Fact with the given id, unpacked on every call
+     */
+    public synchronized Fact fact(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("No fact " + id + ", there are " + size());
+        }
+        return Fact.builder().setPredicate(unpack(predicates[id >> 1])).setSign(isPositive(id)).build();
+    }
+
+    /**
+     * Number of fact ids handed out so far, every id is smaller than this
+     */
+    public synchronized int size() {
+        return 2 * predicateCount;
+    }
+
+    public static int flip(int id) {
+        return id ^ 1;
+    }
+
+    public static boolean isPositive(int id) {
+        return (id & 1) == 0;
+    }
+
+    public synchronized long pack(Predicate predicate) {
+        List<String> arguments = predicate.getArguments();
+        if (arguments.size() > MAX_ARITY) {
+            return packWide(predicate);
+        }
+        long key = intern(predicate.getName(), nameIds, names);
+        for (String argument : arguments) {
+            key = (key << SYMBOL_BITS) | intern(argument, constantIds, constants);
+        }
+        return key << (SYMBOL_BITS * (MAX_ARITY - arguments.size()));
+    }
+
+    public synchronized Predicate unpack(long key) {
+        if (isWide(key)) {
+            return unpackWide(key);
+        }
+        List<String> arguments = new ArrayList<>(MAX_ARITY);
+        for (int i = MAX_ARITY - 1; i >= 0; i--) {
+            int constant = (int) ((key >>> (SYMBOL_BITS * i)) & SYMBOL_MASK);
+            if (constant != 0) {
+                arguments.add(constants.get(constant));
+            }
+        }
+        String name = names.get((int) ((key >>> (SYMBOL_BITS * MAX_ARITY)) & SYMBOL_MASK));
+        return Predicate.builder().setName(name).setArguments(arguments).build();
+    }
+
+    private Long packIfPresent(Predicate predicate) {
+        List<String> arguments = predicate.getArguments();
+        Integer name = nameIds.get(predicate.getName());
+        if (name == null) {
+            return null;
+        }
+        if (arguments.size() > MAX_ARITY) {
+            List<Integer> symbols = new ArrayList<>(arguments.size() + 1);
+            symbols.add(name);
+            for (String argument : arguments) {
+                Integer constant = constantIds.get(argument);
+                if (constant == null) {
+                    return null;
+                }
+                symbols.add(constant);
+            }
+            Integer index = wideIndexes.get(symbols);
+            return index == null ? null : index + 1L;
+        }
+        long key = name;
+        for (String argument : arguments) {
+            Integer constant = constantIds.get(argument);
+            if (constant == null) {
+                return null;
+            }
+            key = (key << SYMBOL_BITS) | constant;
+        }
+        return key << (SYMBOL_BITS * (MAX_ARITY - arguments.size()));
+    }
+
+    private long packWide(Predicate predicate) {
+        int[] symbols = new int[predicate.getArguments().size() + 1];
+        symbols[0] = intern(predicate.getName(), nameIds, names);
+        for (int i = 1; i < symbols.length; i++) {
+            symbols[i] = intern(predicate.getArguments().get(i - 1), constantIds, constants);
+        }
+        List<Integer> key = asList(symbols);
+        Integer index = wideIndexes.get(key);
+        if (index == null) {
+            index = wide.size();
+            wideIndexes.put(key, index);
+            wide.add(symbols);
+        }
+        return index + 1L;
+    }
+
+    private Predicate unpackWide(long key) {
+        int[] symbols = wide.get((int) (key - 1));
+        List<String> arguments = new ArrayList<>(symbols.length - 1);
+        for (int i = 1; i < symbols.length; i++) {
+            arguments.add(constants.get(symbols[i]));
+        }
+        return Predicate.builder().setName(names.get(symbols[0])).setArguments(arguments).build();
+    }
+
+    private static boolean isWide(long key) {
+        return (key >>> (SYMBOL_BITS * MAX_ARITY)) == 0;
+    }
+
+    private static List<Integer> asList(int[] symbols) {
+        List<Integer> list = new ArrayList<>(symbols.length);
+        for (int symbol : symbols) {
+            list.add(symbol);
+        }
+        return list;
+    }
+
+    private static int intern(String symbol, Map<String, Integer> ids, List<String> symbols) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            if (symbols.size() > MAX_SYMBOLS) {
+                throw new IllegalStateException("Too many symbols, at most " + MAX_SYMBOLS + " are supported");
+            }
+            id = symbols.size();
+            ids.put(symbol, id);
+            symbols.add(symbol);
+        }
+        return id;
+    }
+
+    /**
+     * Interned names in id order, without the placeholder 0
+     */
+    synchronized List<String> names() {
+        return new ArrayList<>(names.subList(1, names.size()));
+    }
+
+    synchronized List<String> constants() {
+        return new ArrayList<>(constants.subList(1, constants.size()));
+    }
+
+    /**
+     * Packed predicates in id order, the predicate of fact id being at id / 2
+     */
+    synchronized long[] predicates() {
+        return Arrays.copyOf(predicates, predicateCount);
+    }
+
+    /**
+     * Symbols of the predicates too wide to be packed, in the order of their keys
+     */
+    synchronized List<int[]> widePredicates() {
+        return new ArrayList<>(wide);
+    }
+}
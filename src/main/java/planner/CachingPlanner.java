@@ -0,0 +1,95 @@
+package planner;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import knowledge.Fact;
+import knowledge.Problem;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the results of another planner by problem (initial state included) and goals, see PlanCacheKey.
+ * Entries go once there are too many of them (least recently used first) or once they are too old.
+ * Results of calls stopped by their token are not kept, a cached result is returned as it was first computed.
+ * Keys only hold the fingerprint of their problem, so cached problems are not kept in memory.
+ * With validation on (off by default), a cached plan is run from the initial state of the problem it is asked for
+ * (see PlanValidator) before being returned, and planned again if it doesn't reach the goals.
+ */
+public final class CachingPlanner implements Planner {
+    private final Planner planner;
+    private final boolean validate;
+    private final Cache<PlanCacheKey, PlanningResult> results;
+    // By problem instance, so validating doesn't ground the same problem again
+    private final Cache<Problem, PlanValidator> validators = CacheBuilder.newBuilder().weakKeys().build();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingPlanner(Planner planner, long maximumSize, long maximumAge, TimeUnit unit) {
+        this(planner, maximumSize, maximumAge, unit, false);
+    }
+
+    public CachingPlanner(Planner planner, long maximumSize, long maximumAge, TimeUnit unit, boolean validate) {
+        this.planner = planner;
+        this.validate = validate;
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maximumAge, unit)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<Plan> plan(Set<Fact> goals, Problem problem) {
+        return plan(goals, problem, CancellationToken.none()).getPlan();
+    }
+
+    @Override
+    public PlanningResult plan(Set<Fact> goals, Problem problem, CancellationToken token) {
+        PlanCacheKey key = PlanCacheKey.of(problem, ImmutableSet.copyOf(goals));
+        PlanningResult cached = results.getIfPresent(key);
+        if (cached != null) {
+            Optional<Plan> plan = cached.getPlan();
+            if (!validate || !plan.isPresent() || validator(problem).achieves(plan.get(), goals)) {
+                return cached;
+            }
+            invalidations.incrementAndGet();
+            results.invalidate(key);
+        }
+        PlanningResult result = planner.plan(goals, problem, token);
+        if (!result.isStopped()) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    public PlanCacheStats stats() {
+        CacheStats stats = results.stats();
+        long invalid = invalidations.get();
+        return PlanCacheStats.builder()
+                .setHits(stats.hitCount() - invalid)
+                .setMisses(stats.missCount() + invalid)
+                .setEvictions(stats.evictionCount())
+                .setInvalidations(invalid)
+                .build();
+    }
+
+    /**
+     * Number of results currently cached
+     */
+    public long size() {
+        return results.size();
+    }
+
+    private PlanValidator validator(Problem problem) {
+        try {
+            return validators.get(problem, () -> new PlanValidator(problem.getGroundProblem()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
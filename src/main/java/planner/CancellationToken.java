@@ -0,0 +1,72 @@
+package planner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a planning call be stopped from outside, by calling cancel from any thread or by a deadline.
+ * Planners check it cooperatively between units of work and give up with a TIMED_OUT or CANCELLED result,
+ * see PlanningResult. A token can be shared by many calls, cancelling it stops all of them.
+ */
+public final class CancellationToken {
+    private static final CancellationToken NONE = new CancellationToken(false, 0);
+
+    private final boolean timed;
+    // In System.nanoTime terms, only meaningful if timed
+    private final long deadline;
+    private volatile boolean cancelled;
+
+    private CancellationToken(boolean timed, long deadline) {
+        this.timed = timed;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Token never stopping anything (cancelling it has no effect)
+     */
+    public static CancellationToken none() {
+        return NONE;
+    }
+
+    /**
+     * Token only stopped by cancel
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(false, 0);
+    }
+
+    /**
+     * Token expiring once the given time has passed from now, it can also be cancelled before
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        // Deadlines are compared by difference, which is only safe below half the range of nanoTime
+        return new CancellationToken(true, System.nanoTime() + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2));
+    }
+
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean hasExpired() {
+        return timed && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * True once the work using the token should stop
+     */
+    public boolean shouldStop() {
+        return cancelled || hasExpired();
+    }
+
+    /**
+     * Status a call stopped by this token ends with
+     */
+    public PlanningResult.Status stopStatus() {
+        return cancelled ? PlanningResult.Status.CANCELLED : PlanningResult.Status.TIMED_OUT;
+    }
+}
@@ -0,0 +1,23 @@
+package planner;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.hash.HashCode;
+import knowledge.Fact;
+import knowledge.Problem;
+
+import java.util.Set;
+
+/**
+ * What a cached plan depends on: the fingerprint of the problem (see Problem.getFingerprint) and the goals.
+ * Equal problems and goals given in any order share an entry, and a lookup doesn't compare whole problems
+ */
+@AutoValue
+abstract class PlanCacheKey {
+    abstract HashCode getProblemFingerprint();
+
+    abstract Set<Fact> getGoals();
+
+    static PlanCacheKey of(Problem problem, Set<Fact> goals) {
+        return new AutoValue_PlanCacheKey(problem.getFingerprint(), goals);
+    }
+}
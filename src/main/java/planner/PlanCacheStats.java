@@ -0,0 +1,36 @@
+package planner;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Counters of a {@link CachingPlanner} since it was created
+ */
+@AutoValue
+public abstract class PlanCacheStats {
+    public abstract long getHits();
+
+    public abstract long getMisses();
+
+    // Entries dropped for size or age
+    public abstract long getEvictions();
+
+    // Cached plans that failed validation, counted as misses too
+    public abstract long getInvalidations();
+
+    public static Builder builder() {
+        return new AutoValue_PlanCacheStats.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder setHits(long newHits);
+
+        public abstract Builder setMisses(long newMisses);
+
+        public abstract Builder setEvictions(long newEvictions);
+
+        public abstract Builder setInvalidations(long newInvalidations);
+
+        public abstract PlanCacheStats build();
+    }
+}
@@ -0,0 +1,99 @@
+package planner;
+
+import knowledge.Bits;
+import knowledge.Fact;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.Predicate;
+import knowledge.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks plans by running them from the initial state of a ground problem. The world is closed: a fact is true
+ * only if it was in the initial state or added since, a negative precondition or goal asks for its fact to be false
+ * and an action first removes its negative effects and then adds its positive ones.
+ */
+public final class PlanValidator {
+    private final GroundProblem groundProblem;
+    // Several ground actions share a step when their preconditions have variables the predicate hasn't
+    private final Map<Predicate, List<GroundAction>> actions = new HashMap<>();
+
+    public PlanValidator(GroundProblem groundProblem) {
+        this.groundProblem = groundProblem;
+        for (GroundAction action : groundProblem.getActions()) {
+            actions.computeIfAbsent(action.getPredicate(), p -> new ArrayList<>(1)).add(action);
+        }
+    }
+
+    /**
+     * True if every step of the plan is a ground action applicable when it comes and all the goals hold at the end
+     */
+    public boolean achieves(Plan plan, Set<Fact> goals) {
+        return achieves(initialState(), plan.getSequence(), goals);
+    }
+
+    /**
+     * Same as above from another state, the bitset of the positive fact ids that hold, which is not modified
+     */
+    public boolean achieves(long[] state, List<Predicate> steps, Set<Fact> goals) {
+        for (Predicate step : steps) {
+            GroundAction action = applicable(state, actions.get(step));
+            if (action == null) {
+                return false;
+            }
+            state = apply(state, action);
+        }
+        SymbolTable symbols = groundProblem.getSymbols();
+        for (Fact goal : goals) {
+            int id = symbols.idIfPresent(goal);
+            boolean holds = id == SymbolTable.NOT_PRESENT ? !goal.getSign() : holds(state, id);
+            if (!holds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static GroundAction applicable(long[] state, List<GroundAction> candidates) {
+        if (candidates != null) {
+            for (GroundAction action : candidates) {
+                if (action.isApplicable(state)) {
+                    return action;
+                }
+            }
+        }
+        return null;
+    }
+
+    private long[] initialState() {
+        long[] initial = groundProblem.getInitialState();
+        long[] state = Bits.empty();
+        for (int fact = Bits.nextSetBit(initial, 0); fact >= 0; fact = Bits.nextSetBit(initial, fact + 1)) {
+            if (SymbolTable.isPositive(fact)) {
+                state = Bits.set(state, fact);
+            }
+        }
+        return state;
+    }
+
+    private static boolean holds(long[] state, int fact) {
+        return SymbolTable.isPositive(fact) ? Bits.get(state, fact) : !Bits.get(state, SymbolTable.flip(fact));
+    }
+
+    private static long[] apply(long[] state, GroundAction action) {
+        long[] next = Arrays.copyOf(state, state.length);
+        for (int fact : action.getDeleteEffects()) {
+            Bits.clear(next, fact);
+        }
+        for (int fact : action.getAddEffects()) {
+            next = Bits.set(next, fact);
+        }
+        return next;
+    }
+}
@@ -1,10 +1,41 @@
 package planner;
 
+import com.google.common.collect.ImmutableSet;
 import knowledge.Fact;
 import knowledge.Problem;
 
 import java.util.Optional;
+import java.util.Set;
 
 public interface Planner {
-    Optional<Plan> plan(Fact goal, Problem problem);
+    /**
+     * Plan achieving all the goals
+     */
+    Optional<Plan> plan(Set<Fact> goals, Problem problem);
+
+    default Optional<Plan> plan(Fact goal, Problem problem) {
+        return plan(ImmutableSet.of(goal), problem);
+    }
+
+    /**
+     * Same as above, giving up once the token says so. Planners that can't be stopped in the middle only
+     * check the token before starting
+     */
+    default PlanningResult plan(Set<Fact> goals, Problem problem, CancellationToken token) {
+        long start = System.nanoTime();
+        if (token.shouldStop()) {
+            return PlanningResult.builder()
+                    .setStatus(token.stopStatus())
+                    .setDeepestLevel(0)
+                    .setElapsedNanos(0)
+                    .build();
+        }
+        Optional<Plan> plan = plan(goals, problem);
+        return PlanningResult.builder()
+                .setStatus(plan.isPresent() ? PlanningResult.Status.SOLVED : PlanningResult.Status.EXHAUSTED)
+                .setPlan(plan)
+                .setDeepestLevel(plan.map(p -> p.getSequence().size()).orElse(0))
+                .setElapsedNanos(System.nanoTime() - start)
+                .build();
+    }
 }
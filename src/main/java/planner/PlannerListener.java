@@ -0,0 +1,37 @@
+package planner;
+
+/**
+ * Callbacks about where a planner spends its time. Every method does nothing by default and planners given
+ * NONE don't even measure, so leaving instrumentation wired in costs close to nothing until a listener is set.
+ * A planner used from many threads calls its listener from all of them. Durations are in nanoseconds.
+ */
+public interface PlannerListener {
+    PlannerListener NONE = new PlannerListener() {
+    };
+
+    /**
+     * The problem was grounded, or its grounding was already cached and the duration is close to 0
+     */
+    default void problemGrounded(int groundActions, int groundFacts, long duration) {
+    }
+
+    /**
+     * A level was added to the planning graph, the duration excluding its mutexes
+     */
+    default void levelExtended(int level, int actions, int propositions, long duration) {
+    }
+
+    /**
+     * Mutexes of a new level were computed, counted as unordered pairs
+     */
+    default void mutexesComputed(int level, int actionMutexPairs, int propositionMutexPairs,
+                                 long actionMutexDuration, long propositionMutexDuration) {
+    }
+
+    /**
+     * A plan was searched backwards from the given level. Backtracks are the actions chosen to support a goal
+     * and given up because the rest of the goals couldn't be supported with them
+     */
+    default void planExtracted(int level, boolean found, long backtracks, long duration) {
+    }
+}
@@ -0,0 +1,31 @@
+package planner;
+
+import planner.graphplan.GraphplanPlanner;
+import planner.heuristic.Heuristic;
+import planner.heuristic.HeuristicSearchPlanner;
+
+/**
+ * Planners by the names the command line tools take
+ */
+public final class Planners {
+    public static final String GRAPHPLAN = "graphplan";
+    public static final String GREEDY = "greedy";
+    public static final String ASTAR = "astar";
+
+    private Planners() {
+    }
+
+    public static Planner byName(String name) {
+        switch (name) {
+            case GRAPHPLAN:
+                return new GraphplanPlanner(Integer.MAX_VALUE);
+            case GREEDY:
+                return HeuristicSearchPlanner.greedy();
+            case ASTAR:
+                return HeuristicSearchPlanner.weightedAStar(Heuristic.ADD, 1);
+            default:
+                throw new IllegalArgumentException("Unknown planner " + name + ", expected " + GRAPHPLAN + ", "
+                        + GREEDY + " or " + ASTAR);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package planner;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.Optional;
+
+/**
+ * Outcome of a planning call that can be stopped (see CancellationToken), with what the planner got to before
+ * it ended. Only a SOLVED result has a plan.
+ */
+@AutoValue
+public abstract class PlanningResult {
+    public enum Status {
+        SOLVED,
+        // The planner proved no plan exists
+        UNSOLVABLE,
+        // No plan within the planner's own limits (e.g. the maximum depth of graphplan), one may exist beyond them
+        EXHAUSTED,
+        TIMED_OUT,
+        CANCELLED
+    }
+
+    public abstract Status getStatus();
+
+    public abstract Optional<Plan> getPlan();
+
+    // Deepest level (graphplan) or plan length (forward search) the planner worked on
+    public abstract int getDeepestLevel();
+
+    public abstract long getElapsedNanos();
+
+    public boolean isStopped() {
+        return getStatus() == Status.TIMED_OUT || getStatus() == Status.CANCELLED;
+    }
+
+    public static Builder builder() {
+        return new AutoValue_PlanningResult.Builder().setPlan(Optional.empty());
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder setStatus(Status newStatus);
+
+        public abstract Builder setPlan(Optional<Plan> newPlan);
+
+        public abstract Builder setDeepestLevel(int newDeepestLevel);
+
+        public abstract Builder setElapsedNanos(long newElapsedNanos);
+
+        public abstract PlanningResult build();
+    }
+}
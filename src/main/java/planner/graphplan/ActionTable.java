@@ -0,0 +1,70 @@
+package planner.graphplan;
+
+import knowledge.Fact;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.Predicate;
+import knowledge.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Dense ids for the actions of a planning graph: the ground actions of the problem keep their ids and the
+ * artificial keep actions, created as facts show up, are numbered after them.
+ * Everything the levels store about actions are these ids, so an Action is never hashed while planning.
+ */
+final class ActionTable {
+    private final GroundProblem groundProblem;
+    private final int groundActionCount;
+    private final List<Predicate> keepActions = new ArrayList<>();
+    private final List<int[]> keptFacts = new ArrayList<>();
+    // Indexed by fact id, NOT_PRESENT when no keep action exists yet
+    private int[] keepIds = new int[0];
+
+    ActionTable(GroundProblem groundProblem) {
+        this.groundProblem = groundProblem;
+        this.groundActionCount = groundProblem.getActions().size();
+    }
+
+    /**
+     * Id of the artificial action that carries the fact to the next level
+     */
+    synchronized int keep(int fact) {
+        if (fact >= keepIds.length) {
+            int oldLength = keepIds.length;
+            keepIds = Arrays.copyOf(keepIds, Math.max(fact + 1, 2 * oldLength));
+            Arrays.fill(keepIds, oldLength, keepIds.length, SymbolTable.NOT_PRESENT);
+        }
+        if (keepIds[fact] == SymbolTable.NOT_PRESENT) {
+            Fact p = groundProblem.getSymbols().fact(fact);
+            keepActions.add(Predicate.parse(Graph.KEEP_PREDICATE_NAME + " " + p.toString()));
+            keptFacts.add(new int[]{fact});
+            keepIds[fact] = groundActionCount + keepActions.size() - 1;
+        }
+        return keepIds[fact];
+    }
+
+    synchronized Predicate predicate(int id) {
+        return isKeep(id) ? keepActions.get(id - groundActionCount) : groundAction(id).getPredicate();
+    }
+
+    synchronized int[] preconditions(int id) {
+        return isKeep(id) ? keptFacts.get(id - groundActionCount) : groundAction(id).getPreconditions();
+    }
+
+    synchronized int[] effects(int id) {
+        return isKeep(id) ? keptFacts.get(id - groundActionCount) : groundAction(id).getEffects();
+    }
+
+    boolean isKeep(int id) {
+        return id >= groundActionCount;
+    }
+
+    synchronized int size() {
+        return groundActionCount + keepActions.size();
+    }
+
+    private GroundAction groundAction(int id) {
+        return groundProblem.getAction(id);
+    }
+}
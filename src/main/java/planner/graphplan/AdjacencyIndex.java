@@ -0,0 +1,116 @@
+package planner.graphplan;
+
+import java.util.Arrays;
+
+/**
+ * Connections of one planning graph level, built once when the level is added and shared by the mutex passes
+ * and plan extraction: fact to producing actions, fact to consuming actions, action to preconditions and
+ * action to effects. Everything is stored as int arrays indexed by fact or action id.
+ * Preconditions (and so consumers) include negative ones, producers and effects include constraint effects.
+ */
+public final class AdjacencyIndex {
+    private static final int[] NONE = new int[0];
+    private static final AdjacencyIndex EMPTY = new AdjacencyIndex(NONE, new int[0][], new int[0][], new int[0][], new int[0][]);
+
+    private final int[] actions;
+    private final int[][] preconditions;
+    private final int[][] effects;
+    private final int[][] producers;
+    private final int[][] consumers;
+
+    private AdjacencyIndex(int[] actions, int[][] preconditions, int[][] effects, int[][] producers, int[][] consumers) {
+        this.actions = actions;
+        this.preconditions = preconditions;
+        this.effects = effects;
+        this.producers = producers;
+        this.consumers = consumers;
+    }
+
+    static AdjacencyIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Index of the given actions (keep actions included), in increasing id order
+     */
+    static AdjacencyIndex of(int[] actions, ActionTable actionTable, int factCount) {
+        int actionCount = actions.length == 0 ? 0 : actions[actions.length - 1] + 1;
+        int[][] preconditions = new int[actionCount][];
+        int[][] effects = new int[actionCount][];
+        int[] producerCounts = new int[factCount];
+        int[] consumerCounts = new int[factCount];
+        for (int action : actions) {
+            preconditions[action] = actionTable.preconditions(action);
+            effects[action] = actionTable.effects(action);
+            for (int fact : preconditions[action]) {
+                consumerCounts = count(consumerCounts, fact);
+            }
+            for (int fact : effects[action]) {
+                producerCounts = count(producerCounts, fact);
+            }
+        }
+        int[][] producers = allocate(producerCounts);
+        int[][] consumers = allocate(consumerCounts);
+        Arrays.fill(producerCounts, 0);
+        Arrays.fill(consumerCounts, 0);
+        for (int action : actions) {
+            for (int fact : preconditions[action]) {
+                consumers[fact][consumerCounts[fact]++] = action;
+            }
+            for (int fact : effects[action]) {
+                producers[fact][producerCounts[fact]++] = action;
+            }
+        }
+        return new AdjacencyIndex(actions, preconditions, effects, producers, consumers);
+    }
+
+    /**
+     * Actions of the level, keep actions included, in increasing id order. Must not be modified
+     */
+    public int[] actions() {
+        return actions;
+    }
+
+    public int[] preconditions(int action) {
+        return get(preconditions, action);
+    }
+
+    public int[] effects(int action) {
+        return get(effects, action);
+    }
+
+    /**
+     * Actions of the level having the fact as effect, in increasing id order. Must not be modified
+     */
+    public int[] producers(int fact) {
+        return get(producers, fact);
+    }
+
+    /**
+     * Actions of the level having the fact as precondition, in increasing id order. Must not be modified
+     */
+    public int[] consumers(int fact) {
+        return get(consumers, fact);
+    }
+
+    private static int[] get(int[][] index, int id) {
+        int[] values = id < index.length ? index[id] : null;
+        return values == null ? NONE : values;
+    }
+
+    private static int[] count(int[] counts, int fact) {
+        if (fact >= counts.length) {
+            counts = Arrays.copyOf(counts, fact + 1);
+        }
+        counts[fact]++;
+        return counts;
+    }
+
+    private static int[][] allocate(int[] counts) {
+        int[][] lists = new int[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            lists[i] = counts[i] == 0 ? NONE : new int[counts[i]];
+        }
+        return lists;
+    }
+}
@@ -1,11 +1,14 @@
 package planner.graphplan;
 
-import com.google.auto.value.AutoValue;
 import com.google.common.collect.*;
+import com.google.common.primitives.Ints;
 import knowledge.*;
+import planner.CancellationToken;
 import planner.Plan;
+import planner.PlannerListener;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -13,124 +16,203 @@ import java.util.stream.Collectors;
  * that each level has a different index
  * e.g. prop0 |LEVEL 0|-> act0 -> prop1 |LEVEL 1|-> act1 ...
  * It also supports variables in actions (which is pretty cool) if they are declared.
+ * Levels are only ever appended: actions come already grounded (see GroundProblem) and each extension
+ * only looks at what changed since the previous level (see IncrementalExpansion).
+ * Extensions are serialized, plans can be extracted from the levels already built by many threads at once.
  * This class was hacked together, it needs a few extra abstractions (e.g. use an undirected graph class
  * instead of a multimap). It should also construct each data structure separately.
  */
-@AutoValue
-public abstract class Graph {
+public final class Graph {
 
     static final String KEEP_PREDICATE_NAME = "keep";
 
-    public abstract ImmutableList<GraphplanLevel> getLevels();
+    // Facts are handled as ids of this table, see SymbolTable
+    private final SymbolTable symbols;
+    private final ActionTable actionTable;
+    private final List<GraphplanLevel> levels = new CopyOnWriteArrayList<>();
+    private final IncrementalExpansion expansion;
+    // Mutex passes over at least this many rows run on the fork-join pool, see ParallelMutexes
+    private final int parallelismThreshold;
+    // Told about extensions and extractions, nothing is measured when it is PlannerListener.NONE
+    private final PlannerListener listener;
+    // First level from which every level is identical to it, -1 while the graph is still growing
+    private volatile int levelOff = -1;
+
+    private Graph(GroundProblem groundProblem, int parallelismThreshold, PlannerListener listener) {
+        this.parallelismThreshold = parallelismThreshold;
+        this.listener = listener;
+        this.symbols = groundProblem.getSymbols();
+        this.actionTable = new ActionTable(groundProblem);
+        this.expansion = new IncrementalExpansion(groundProblem, actionTable);
+        this.levels.add(GraphplanLevel.initial(groundProblem.getInitialState()));
+    }
 
     /**
-     * Initialize graphplan given an initial state
+     * Initialize graphplan given the ground problem, its initial state is the first level
      */
-    static Graph fromInitialState(State initialState) {
-        return builder()
-                .setLevels(ImmutableList.of(GraphplanLevel.initial(initialState)))
-                .build();
+    static Graph fromGroundProblem(GroundProblem groundProblem) {
+        return fromGroundProblem(groundProblem, ParallelMutexes.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Same as above, mutex passes over at least parallelismThreshold rows being split across the fork-join pool
+     */
+    static Graph fromGroundProblem(GroundProblem groundProblem, int parallelismThreshold) {
+        return fromGroundProblem(groundProblem, parallelismThreshold, PlannerListener.NONE);
+    }
+
+    /**
+     * Same as above, extensions and extractions being reported to the listener
+     */
+    static Graph fromGroundProblem(GroundProblem groundProblem, int parallelismThreshold, PlannerListener listener) {
+        return new Graph(groundProblem, parallelismThreshold, listener);
+    }
+
+    public List<GraphplanLevel> getLevels() {
+        return Collections.unmodifiableList(levels);
     }
 
-    public static Builder builder() {
-        return new AutoValue_Graph.Builder();
+    public SymbolTable getSymbols() {
+        return symbols;
     }
 
-    Optional<Plan> extractPlan(Fact goal) {
-        return extractPlan(ImmutableSet.of(goal), level());
+    /**
+     * Plan achieving all the goals in the given number of levels, which must have been built.
+     * Throws PlanningStopped if the token of the nogoods says to stop during the search
+     */
+    Optional<Plan> extractPlan(Set<Fact> goals, int level, NogoodMemo nogoods) {
+        Set<Integer> goalIds = new HashSet<>();
+        for (Fact goal : goals) {
+            int goalId = getSymbols().idIfPresent(goal);
+            if (goalId == SymbolTable.NOT_PRESENT) {
+                return Optional.empty();
+            }
+            goalIds.add(goalId);
+        }
+        if (listener == PlannerListener.NONE) {
+            return extractGoals(goalIds, level, nogoods);
+        }
+        long start = System.nanoTime();
+        long backtracks = nogoods.getBacktracks();
+        Optional<Plan> plan = extractGoals(goalIds, level, nogoods);
+        listener.planExtracted(level, plan.isPresent(), nogoods.getBacktracks() - backtracks, System.nanoTime() - start);
+        return plan;
     }
 
-    Graph extendByOneLevel(Problem problem) {
-        HashSet<Action> nextLevelSatisfiedActions = new HashSet<>();
-        ImmutableMultimap<Fact, Action> nextLevelPropositionToActionConnections =
-                propositionsToActionConnectionsForNextLevel(problem, nextLevelSatisfiedActions);
-        HashSet<Fact> nextLevelConditions = new HashSet<>();
-        ImmutableMultimap<Action, Fact> newActToPrepConnections = propositionsForNextLevel(nextLevelSatisfiedActions, nextLevelConditions, problem);
-        State state = State.builder().setState(nextLevelConditions).build();
-        ImmutableMultimap<Action, Action> actionMutexesForLastLevel = establishActionMutexesForLastLevel(newActToPrepConnections, state);
+    /**
+     * Extends the graph until it has the given number of levels (the initial one excluded)
+     */
+    synchronized void extendTo(int level) {
+        extendTo(level, CancellationToken.none());
+    }
+
+    /**
+     * Same as above, throwing PlanningStopped between two steps of an extension if the token says to stop.
+     * Levels already added are kept
+     */
+    synchronized void extendTo(int level, CancellationToken token) {
+        while (level() < level) {
+            extendByOneLevel(token);
+        }
+    }
+
+    synchronized void extendByOneLevel() {
+        extendByOneLevel(CancellationToken.none());
+    }
+
+    private void extendByOneLevel(CancellationToken token) {
+        stopIfAsked(token);
+        boolean measured = listener != PlannerListener.NONE;
+        long start = measured ? System.nanoTime() : 0;
+        long[] lastProp = lastLevel().getProposition();
+        long[] nextLevelSatisfiedActions = expansion.satisfiedActions(lastProp);
+        long[] state = expansion.propositionsForNextLevel(lastProp, nextLevelSatisfiedActions);
+        AdjacencyIndex index = AdjacencyIndex.of(actionsForNextLevel(nextLevelSatisfiedActions), actionTable, getSymbols().size());
+        stopIfAsked(token);
+        long expanded = measured ? System.nanoTime() : 0;
+        MutexMatrix actionMutexesForLastLevel = establishActionMutexesForLastLevel(index, state);
+        stopIfAsked(token);
+        long actionMutexesDone = measured ? System.nanoTime() : 0;
+        MutexMatrix propositionMutexesForLastLevel = establishPropositionMutexesForLastLevel(state, actionMutexesForLastLevel, index);
         GraphplanLevel level = GraphplanLevel.builder()
                 .setAction(nextLevelSatisfiedActions)
                 .setProposition(state)
-                .setActionToPropositionConnections(newActToPrepConnections)
-                .setPropositionToActionConnections(nextLevelPropositionToActionConnections)
+                .setIndex(index)
                 .setActionMutexes(actionMutexesForLastLevel)
-                .setPropositionMutexes(establishPropositionMutexesForLastLevel(state, actionMutexesForLastLevel, newActToPrepConnections))
+                .setPropositionMutexes(propositionMutexesForLastLevel)
                 .build();
-
-        return builder()
-                .setLevels(ImmutableList.<GraphplanLevel>builder().addAll(this.getLevels()).add(level).build()).build();
-    }
-
-    private ImmutableMultimap<Action, Fact> propositionsForNextLevel(HashSet<Action> satisfiedActions, 
-                                                                     HashSet<Fact> conditionsAtNewLevel,
-                                                                     Problem problem) {
-        Multimap<Action, Fact> newActToPrepConnections = HashMultimap.create();
-        for(Action instA : satisfiedActions) {
-            conditionsAtNewLevel.addAll(instA.getEffects());
-            for(Fact effect : instA.getEffects()) {
-                newActToPrepConnections.put(instA, effect);
-            }
-            Set<Fact> constraintEffects = instA.constraintEffects(problem);
-            conditionsAtNewLevel.addAll(constraintEffects);
-            for(Fact cEffect : constraintEffects) {
-                newActToPrepConnections.put(instA, cEffect);
-            }
+        levels.add(level);
+        if (measured) {
+            listener.levelExtended(level(), Bits.cardinality(nextLevelSatisfiedActions), Bits.cardinality(state), expanded - start);
+            listener.mutexesComputed(level(), actionMutexesForLastLevel.pairCount(), propositionMutexesForLastLevel.pairCount(),
+                    actionMutexesDone - expanded, System.nanoTime() - actionMutexesDone);
         }
-        conditionsAtNewLevel.addAll(lastLevel().getProposition().getState());
-        for (Fact p : lastLevel().getProposition().getState()) {
-            Action key = artificialAction(p);
-            newActToPrepConnections.put(key, p);
+        GraphplanLevel previous = levels.get(level() - 1);
+        if (levelOff < 0 && Bits.equal(previous.getProposition(), level.getProposition())
+                && previous.getPropositionMutexes().equals(level.getPropositionMutexes())) {
+            levelOff = level() - 1;
         }
-        return ImmutableMultimap.copyOf(newActToPrepConnections);
     }
 
-    private ImmutableMultimap<Fact, Action> propositionsToActionConnectionsForNextLevel(Problem problem, HashSet<Action> satisfiedActions) {
-        ImmutableMultimap.Builder<Fact, Action> newPropToActConnectionsBuilder = ImmutableMultimap.builder();
-        for(Action a : problem.getActions()) {
-            for (Action instA : a.instantiate(problem)) {
-                if (this.lastLevel().getProposition().satisfiesAction(instA)) {
-                    satisfiedActions.add(instA);
-                    for (Fact pre : this.lastLevel().getProposition().preconditionSupportSet(instA)) {
-                        newPropToActConnectionsBuilder.put(pre, instA);
-                    }
-                }
-             }
+    private static void stopIfAsked(CancellationToken token) {
+        if (token.shouldStop()) {
+            throw new PlanningStopped();
         }
-        for (Fact p : lastLevel().getProposition().getState()) {
-            Action key = artificialAction(p);
-            newPropToActConnectionsBuilder.put(p, key);
+    }
+
+    /**
+     * True once a level has been added that is identical to the previous one: no later level can differ
+     */
+    boolean hasLeveledOff() {
+        return levelOff >= 0;
+    }
+
+    /**
+     * First of the identical levels, only meaningful if the graph has leveled off
+     */
+    int getLevelOff() {
+        return levelOff;
+    }
+
+    /**
+     * Satisfied actions plus a keep action for every proposition of the last level, in increasing id order
+     */
+    private int[] actionsForNextLevel(long[] satisfiedActions) {
+        long[] actions = Arrays.copyOf(satisfiedActions, satisfiedActions.length);
+        long[] lastProp = lastLevel().getProposition();
+        for (int p = Bits.nextSetBit(lastProp, 0); p >= 0; p = Bits.nextSetBit(lastProp, p + 1)) {
+            actions = Bits.set(actions, actionTable.keep(p));
         }
-        return newPropToActConnectionsBuilder.build();
+        return Bits.toIds(actions);
     }
 
     private GraphplanLevel lastLevel() {
-        return getLevels().get(level());
+        return levels.get(level());
     }
 
-    private ImmutableMultimap<Fact, Fact> establishPropositionMutexesForLastLevel(State lastProp, Multimap<Action, Action> actionMutexesForLastLevel, Multimap<Action, Fact> newActToPrepConnections) {
-        Multimap<Fact, Fact> newMutexes = HashMultimap.create();
-        for(Fact f1 : lastProp.getState()) {
-            if (lastProp.getState().contains(f1.flip())) {
-                putInMutexInBothDirections(newMutexes, f1, f1.flip());
+    private MutexMatrix establishPropositionMutexesForLastLevel(long[] lastProp, MutexMatrix actionMutexesForLastLevel, AdjacencyIndex index) {
+        MutexMatrix.Builder newMutexes = MutexMatrix.builder(getSymbols().size());
+        ParallelMutexes.scan(Bits.toIds(lastProp), parallelismThreshold, (f1, pairs) -> {
+            int negation = SymbolTable.flip(f1);
+            if (Bits.get(lastProp, negation)) {
+                pairs.add(f1, negation);
             }
-            for(Fact f2 : lastProp.getState()) {
-                if (!f1.equals(f2) && haveAllPairwiseMutuallyExclusiveActions(actionMutexesForLastLevel, newActToPrepConnections, f1, f2)) {
-                    putInMutexInBothDirections(newMutexes, f1, f2);
+            // The relation is symmetric, so each pair is only checked once
+            for(int f2 = Bits.nextSetBit(lastProp, f1 + 1); f2 >= 0; f2 = Bits.nextSetBit(lastProp, f2 + 1)) {
+                if (f2 != negation && haveAllPairwiseMutuallyExclusiveActions(actionMutexesForLastLevel, index.producers(f1), index.producers(f2))) {
+                    pairs.add(f1, f2);
                 }
             }
             // Variable uniqueness
-        }
-        return ImmutableMultimap.copyOf(newMutexes);
+        }, newMutexes);
+        return newMutexes.build();
     }
 
-    private boolean haveAllPairwiseMutuallyExclusiveActions(Multimap<Action, Action> actionMutexesForLastLevel, Multimap<Action, Fact> newActToPrepConnections, Fact f1, Fact f2) {
-        Multimap<Fact, Action> invertedActToPrepConnections = HashMultimap.create();
-        Multimaps.invertFrom(newActToPrepConnections, invertedActToPrepConnections);
-        Collection<Action> supportF1 = invertedActToPrepConnections.get(f1);
-        Collection<Action> supportF2 = invertedActToPrepConnections.get(f2);
-        for(Action a1 : supportF1) {
-            for(Action a2 : supportF2) {
-                if (!actionMutexesForLastLevel.containsEntry(a1, a2)) {
+    private boolean haveAllPairwiseMutuallyExclusiveActions(MutexMatrix actionMutexesForLastLevel, int[] supportF1, int[] supportF2) {
+        for(int a1 : supportF1) {
+            long[] mutexes = actionMutexesForLastLevel.row(a1);
+            for(int a2 : supportF2) {
+                if (!Bits.get(mutexes, a2)) {
                     return false;
                 }
             }
@@ -138,164 +220,168 @@ public abstract class Graph {
         return true;
     }
 
-    private ImmutableMultimap<Action, Action> establishActionMutexesForLastLevel(ImmutableMultimap<Action, Fact> newActToPrepConnections, State state) {
-        Multimap<Action, Action> newMutexes = HashMultimap.create();
-        State lastProp = lastLevel().getProposition();
-        actionsWithMutuallyExclusiveEffects(newMutexes, state, newActToPrepConnections);
-        Set<Action> lastActions = lastLevel().getAction();
-        actionsWithMutuallyExclusivePreconditions(lastActions, newMutexes, lastProp);
-        actionsWithMutuallyExclusiveEffectsAndPreconditions(lastActions, newMutexes, lastProp, newActToPrepConnections);
-        return ImmutableMultimap.copyOf(newMutexes);
+    private MutexMatrix establishActionMutexesForLastLevel(AdjacencyIndex index, long[] state) {
+        MutexMatrix.Builder newMutexes = MutexMatrix.builder(actionTable.size());
+        long[] lastProp = lastLevel().getProposition();
+        actionsWithMutuallyExclusiveEffects(newMutexes, state, index);
+        actionsWithMutuallyExclusivePreconditions(index, newMutexes);
+        actionsWithMutuallyExclusiveEffectsAndPreconditions(newMutexes, lastProp, index);
+        return newMutexes.build();
     }
 
-    private void actionsWithMutuallyExclusiveEffectsAndPreconditions(Set<Action>  lastActions, Multimap<Action, Action> newMutexes, State lastProp, Multimap<Action, Fact> lastActionConnections) {
-        for (Fact fact : lastProp.getState().stream().collect(Collectors.toList())) {
-            Multimap<Fact, Action> invertedLastActionConnections =  HashMultimap.create();
-            Multimaps.invertFrom(lastActionConnections, invertedLastActionConnections);
-            HashSet<Action> actionCausingThisFact = new HashSet<>(invertedLastActionConnections.get(fact));
-            for (Action action : lastActions) {
-                if (action.getPreconditions().contains(fact)) {
-                    actionCausingThisFact.stream().forEach(act2 -> putInMutexInBothDirections(newMutexes, action, act2));
-                }
+    /**
+     * An action needing a fact is mutex with the other actions of the level producing its negation (interference)
+     */
+    private void actionsWithMutuallyExclusiveEffectsAndPreconditions(MutexMatrix.Builder newMutexes, long[] lastProp,
+                                                                     AdjacencyIndex index) {
+        for (int fact = Bits.nextSetBit(lastProp, 0); fact >= 0; fact = Bits.nextSetBit(lastProp, fact + 1)) {
+            int[] actionsNegatingThisFact = index.producers(SymbolTable.flip(fact));
+            if (actionsNegatingThisFact.length == 0) {
+                continue;
             }
-        }
-    }
-
-    private void actionsWithMutuallyExclusiveEffects(Multimap<Action, Action> newMutexes, State lastProp, Multimap<Action, Fact> lastActionConnections) {
-        for (Fact fact : lastProp.getState().stream().filter(Fact::getSign).collect(Collectors.toList())) {
-            if(lastProp.getState().contains(fact.flip())) {
-                Multimap<Fact, Action> invertedLastActionConnections =  HashMultimap.create();
-                Multimaps.invertFrom(lastActionConnections, invertedLastActionConnections);
-                HashSet<Action> positives = new HashSet<>(invertedLastActionConnections.get(fact));
-                HashSet<Action> negatives = new HashSet<>(invertedLastActionConnections.get(fact.flip()));
-                Set<List<Action>> cartesianProduct = Sets.cartesianProduct(positives, negatives);
-                for(List<Action> singleMutex : cartesianProduct) {
-                    Action a1 = singleMutex.get(0);
-                    Action a2 = singleMutex.get(1);
-                    putInMutexInBothDirections(newMutexes, a1, a2);
+            for (int action : index.consumers(fact)) {
+                if (!actionTable.isKeep(action)) {
+                    for (int act2 : actionsNegatingThisFact) {
+                        if (act2 != action) {
+                            newMutexes.add(action, act2);
+                        }
+                    }
                 }
             }
         }
     }
 
-    private void actionsWithMutuallyExclusivePreconditions(Set<Action> lastActions, Multimap<Action, Action> newMutexes, State lastProp) {
-        for(Action a1 : lastActions) {
-            for(Action a2 : lastActions) {
-                if (!a1.equals(a2)) {
-                    if (mutuallyExclusiveFacts(a1.getPreconditions(), a2.getPreconditions())) {
-                        putInMutexInBothDirections(newMutexes, a1, a2);
+    private void actionsWithMutuallyExclusiveEffects(MutexMatrix.Builder newMutexes, long[] lastProp, AdjacencyIndex index) {
+        for (int fact = Bits.nextSetBit(lastProp, 0); fact >= 0; fact = Bits.nextSetBit(lastProp, fact + 1)) {
+            if(SymbolTable.isPositive(fact) && Bits.get(lastProp, SymbolTable.flip(fact))) {
+                for(int a1 : index.producers(fact)) {
+                    for(int a2 : index.producers(SymbolTable.flip(fact))) {
+                        newMutexes.add(a1, a2);
                     }
                 }
             }
         }
     }
 
-    private boolean mutuallyExclusiveFacts(Set<Fact> p1, Set<Fact> p2) {
-        for (Fact f1 : p1) {
-            if (p2.contains(f1.flip())) {
-                return true;
+    /**
+     * Actions of the level needing facts mutex at the previous level (competing needs), keep actions included.
+     * A fact and its negation are always mutex
+     */
+    private void actionsWithMutuallyExclusivePreconditions(AdjacencyIndex index, MutexMatrix.Builder newMutexes) {
+        MutexMatrix lastMutexes = lastLevel().getPropositionMutexes();
+        ParallelMutexes.scan(index.actions(), parallelismThreshold, (a1, pairs) -> {
+            for (int pre : index.preconditions(a1)) {
+                long[] mutexes = lastMutexes.row(pre);
+                for (int other = Bits.nextSetBit(mutexes, 0); other >= 0; other = Bits.nextSetBit(mutexes, other + 1)) {
+                    for (int a2 : index.consumers(other)) {
+                        if (a2 != a1) {
+                            pairs.add(a1, a2);
+                        }
+                    }
+                }
             }
-        }
-        return false;
+        }, newMutexes);
     }
 
-    private <T> void putInMutexInBothDirections(Multimap<T, T> newMutexes, T a1, T a2) {
-        newMutexes.put(a1, a2);
-        newMutexes.put(a2, a1);
-    }
-
-    private Action artificialAction(Fact p) {
-        return Action.builder().setPredicate(Predicate.parse("keep " + p.toString()))
-                .setPreconditions(ImmutableSet.of(p))
-                .setEffects(ImmutableSet.of(p))
-                .build();
+    private int level() {
+        return levels.size() - 1;
     }
 
-    private int level() {
-        return getLevels().size() - 1;
+    private Optional<Plan> extractGoals(Set<Integer> goal, int level, NogoodMemo nogoods) {
+        long[] goalBits = Bits.ofIds(Ints.toArray(goal));
+        BitSet goalKey = BitSet.valueOf(goalBits);
+        if (nogoods.contains(level, goalKey)) {
+            return Optional.empty();
+        }
+        Optional<Plan> plan = extractPlan(goal, goalBits, level, nogoods);
+        if (!plan.isPresent()) {
+            nogoods.add(level, goalKey);
+        }
+        return plan;
     }
 
-    private Optional<Plan> extractPlan(Set<Fact> goal, int level) {
-        if (inconsistentFacts(goal)) {
+    private Optional<Plan> extractPlan(Set<Integer> goal, long[] goalBits, int level, NogoodMemo nogoods) {
+        if (inconsistentFacts(goalBits, level)) {
             return Optional.empty();
         }
-        if(level > 0 && getLevels().get(level).getProposition().getState().containsAll(goal)) {
-            Set<Set<Action>> actionSet = getSupportSetForGoalsAtLevel(goal, level);
-            for (Set<Action> support : actionSet) {
-                Set<Fact> preconditions = preconditionsForActions(support, level);
-                Optional<Plan> plan = extractPlan(preconditions, level - 1);
-                if (plan.isPresent()) {
-                    LinkedList<Predicate> newList = new LinkedList<>();
-                    newList.addAll(plan.get().getSequence());
-                    newList.addAll(support.stream().map(a -> a.getPredicate()).filter(a -> !a.getName().equals(KEEP_PREDICATE_NAME)).collect(Collectors.toSet()));
-                    return Optional.of(Plan.builder().setSequence(newList).build());
-                }
-            }
+        if(level > 0 && Bits.containsAll(levels.get(level).getProposition(), goalBits)) {
+            return extractSupport(goalsByFewestProducers(goal, level), 0, Bits.empty(), level, nogoods);
         } else if (level == 0) {
             return Optional.of(Plan.builder().setSequence(ImmutableList.of()).build());
         }
         return Optional.empty();
     }
 
-    private Set<Fact> preconditionsForActions(Set<Action> support, int level) {
-        HashSet<Fact> preconditions = new HashSet<>();
-        Multimap<Fact, Action> connections = getLevels().get(level).getPropositionToActionConnections();
-        for(Map.Entry<Fact, Action> entry : connections.entries()) {
-            if (support.contains(entry.getValue())) {
-                preconditions.add(entry.getKey());
+    /**
+     * Depth first search of a set of non mutex actions supporting all the goals, goal by goal.
+     * A goal already produced by a chosen action adds nothing to the set, otherwise each of its producers that is
+     * not mutex with the chosen ones is tried (keep actions first). Once every goal is supported the preconditions
+     * of the set are the goals of the previous level.
+     */
+    private Optional<Plan> extractSupport(int[] goals, int next, long[] support, int level, NogoodMemo nogoods) {
+        nogoods.step();
+        if (next == goals.length) {
+            Optional<Plan> plan = extractGoals(preconditionsForActions(support, level), level - 1, nogoods);
+            if (plan.isPresent()) {
+                LinkedList<Predicate> newList = new LinkedList<>();
+                newList.addAll(plan.get().getSequence());
+                newList.addAll(Ints.asList(Bits.toIds(support)).stream().map(a -> actionTable.predicate(a)).filter(a -> !a.getName().equals(KEEP_PREDICATE_NAME)).collect(Collectors.toSet()));
+                return Optional.of(Plan.builder().setSequence(newList).build());
             }
+            return plan;
         }
-        return preconditions;
-    }
-
-    private boolean inconsistentFacts(Set<Fact> goal) {
-        for(Fact g1 : goal) {
-            for(Fact g2 : goal) {
-                if (!g1.equals(g2)) { // TODO GET RID OF SIMMETRY (ALSO CHECK OTHER PLACES)
-                    if (lastLevel().getPropositionMutexes().containsEntry(g1, g2)) {
-                        return true;
-                    }
+        int[] producers = levels.get(level).getIndex().producers(goals[next]);
+        for (int action : producers) {
+            if (Bits.get(support, action)) {
+                return extractSupport(goals, next + 1, support, level, nogoods);
+            }
+        }
+        MutexMatrix mutexes = levels.get(level).getActionMutexes();
+        // Keep actions have the highest ids, they are tried first and then the others in id order
+        int firstKeep = producers.length - keepCount(producers);
+        for (int i = 0; i < producers.length; i++) {
+            int action = producers[(firstKeep + i) % producers.length];
+            if (mutexes.compatibleWithAll(action, support)) {
+                Optional<Plan> plan = extractSupport(goals, next + 1, Bits.set(Arrays.copyOf(support, support.length), action), level, nogoods);
+                if (plan.isPresent()) {
+                    return plan;
                 }
+                nogoods.backtracked();
             }
         }
-        return false;
+        return Optional.empty();
     }
 
-    private Set<Set<Action>> getSupportSetForGoalsAtLevel(Set<Fact> goal, int level) {
-        List<Set<Action>> actionsForGoals = new LinkedList<>();
-        for(Fact partialGoal : goal) {
-            Set<Action> actionsForGoal = pickActionsForGoal(partialGoal, level);
-            actionsForGoals.add(actionsForGoal);
+    private int keepCount(int[] actions) {
+        int count = 0;
+        for (int i = actions.length - 1; i >= 0 && actionTable.isKeep(actions[i]); i--) {
+            count++;
         }
-        Set<List<Action>> cartesianProduct = Sets.cartesianProduct(actionsForGoals);
-        return cartesianProduct.stream()
-                .filter(setOfAction -> consistentSetOfActions(setOfAction, level))
-                .map(HashSet::new)
-                .collect(Collectors.toSet());
+        return count;
     }
 
-    private Set<Action> pickActionsForGoal(Fact partialGoal, int level) {
-        Multimap<Fact, Action> invertedActToPrepConnections = HashMultimap.create();
-        Multimaps.invertFrom(getLevels().get(level).getActionToPropositionConnections(), invertedActToPrepConnections);
-        return new HashSet<>(invertedActToPrepConnections.get(partialGoal));
+    private int[] goalsByFewestProducers(Set<Integer> goal, int level) {
+        AdjacencyIndex index = levels.get(level).getIndex();
+        return goal.stream()
+                .sorted(Comparator.comparingInt((Integer g) -> index.producers(g).length).thenComparing(g -> g))
+                .mapToInt(Integer::intValue)
+                .toArray();
     }
 
-    private boolean consistentSetOfActions(List<Action> actions, int level) {
-        for(Action a1 : actions) {
-            for (Action a2 : actions) {
-                if (!a1.equals(a2) && getLevels().get(level).getActionMutexes().get(a1).contains(a2)) {
-                    return false;
+    private Set<Integer> preconditionsForActions(long[] support, int level) {
+        HashSet<Integer> preconditions = new HashSet<>();
+        AdjacencyIndex index = levels.get(level).getIndex();
+        for(int action = Bits.nextSetBit(support, 0); action >= 0; action = Bits.nextSetBit(support, action + 1)) {
+            for (int pre : index.preconditions(action)) {
+                if (SymbolTable.isPositive(pre)) {
+                    preconditions.add(pre);
                 }
             }
         }
-        return true;
+        return preconditions;
     }
 
-    @AutoValue.Builder
-    public abstract static class Builder {
-
-        public abstract Builder setLevels(ImmutableList<GraphplanLevel> newLevels);
-
-        public abstract Graph build();
+    private boolean inconsistentFacts(long[] goal, int level) {
+        return !levels.get(level).getPropositionMutexes().consistent(goal);
     }
 }
@@ -1,56 +1,49 @@
 package planner.graphplan;
 
 import com.google.auto.value.AutoValue;
-import com.google.common.collect.ImmutableMultimap;
-import knowledge.Action;
-import knowledge.Fact;
-import knowledge.State;
-
-import java.util.Collections;
-import java.util.Set;
+import knowledge.Bits;
 
 @AutoValue
 public abstract class GraphplanLevel {
     // prop0 |LEVEL 0|-> act0 -> prop1 |LEVEL 1|-> act1 ...
-    public abstract State getProposition();
-    public abstract Set<Action> getAction();
-    // Level 0 connects prop0 and act0, level 1 connects prop1 and act1
-    // Coming from the previous level
-    public abstract ImmutableMultimap<Fact, Action> getPropositionToActionConnections();
-    // Level 0 connects act0 and prop1, level 1 connects act1 and prop2
-    public abstract ImmutableMultimap<Action, Fact> getActionToPropositionConnections();
-    public abstract ImmutableMultimap<Action, Action> getActionMutexes();
-    public abstract ImmutableMultimap<Fact, Fact> getPropositionMutexes();
+    // Propositions and actions are bitsets over the fact ids of the problem symbol table
+    // and the action ids of the graph action table. They must not be modified.
+    @SuppressWarnings("mutable")
+    public abstract long[] getProposition();
+    @SuppressWarnings("mutable")
+    public abstract long[] getAction();
+    // Connections between the propositions of the previous level, the actions of this one (keep actions included)
+    // and the propositions of this one
+    public abstract AdjacencyIndex getIndex();
+    public abstract MutexMatrix getActionMutexes();
+    public abstract MutexMatrix getPropositionMutexes();
 
     public static Builder builder() {
         return new AutoValue_GraphplanLevel.Builder();
     }
 
-    static GraphplanLevel initial(State initialState) {
-            return builder()
+    static GraphplanLevel initial(long[] initialState) {
+        return builder()
                 .setProposition(initialState)
-                .setAction(Collections.emptySet())
-                .setPropositionToActionConnections(ImmutableMultimap.of())
-                .setActionToPropositionConnections(ImmutableMultimap.of())
-                .setActionMutexes(ImmutableMultimap.of())
-                .setPropositionMutexes(ImmutableMultimap.of())
+                .setAction(Bits.empty())
+                .setIndex(AdjacencyIndex.empty())
+                .setActionMutexes(MutexMatrix.empty())
+                .setPropositionMutexes(MutexMatrix.empty())
                 .build();
     }
 
     @AutoValue.Builder
     public abstract static class Builder {
 
-        public abstract Builder setProposition(State newProposition);
-
-        public abstract Builder setAction(Set<Action> newAction);
+        public abstract Builder setProposition(long[] newProposition);
 
-        public abstract Builder setPropositionToActionConnections(ImmutableMultimap<Fact, Action> newPropositionToActionConnections);
+        public abstract Builder setAction(long[] newAction);
 
-        public abstract Builder setActionToPropositionConnections(ImmutableMultimap<Action, Fact> newActionToPropositionConnections);
+        public abstract Builder setIndex(AdjacencyIndex newIndex);
 
-        public abstract Builder setActionMutexes(ImmutableMultimap<Action, Action> newActionMutexes);
+        public abstract Builder setActionMutexes(MutexMatrix newActionMutexes);
 
-        public abstract Builder setPropositionMutexes(ImmutableMultimap<Fact, Fact> newPropositionMutexes);
+        public abstract Builder setPropositionMutexes(MutexMatrix newPropositionMutexes);
 
         public abstract GraphplanLevel build();
     }
@@ -2,32 +2,54 @@ package planner.graphplan;
 
 import knowledge.Fact;
 import knowledge.Problem;
+import planner.CancellationToken;
 import planner.Plan;
 import planner.Planner;
+import planner.PlannerListener;
+import planner.PlanningResult;
 
 import java.util.Optional;
+import java.util.Set;
 
 public class GraphplanPlanner implements Planner {
 
     private final int maxDepth;
+    private final int parallelismThreshold;
+    private final PlannerListener listener;
 
     public GraphplanPlanner(int maxDepth) {
+        this(maxDepth, ParallelMutexes.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Mutex passes over at least parallelismThreshold actions or facts use all the cores,
+     * 0 always does and Integer.MAX_VALUE never does
+     */
+    public GraphplanPlanner(int maxDepth, int parallelismThreshold) {
+        this(maxDepth, parallelismThreshold, PlannerListener.NONE);
+    }
+
+    /**
+     * Same as above, each planning call reporting its work to the listener (see planner.jfr.JfrPlannerListener)
+     */
+    public GraphplanPlanner(int maxDepth, int parallelismThreshold, PlannerListener listener) {
         this.maxDepth = maxDepth;
+        this.parallelismThreshold = parallelismThreshold;
+        this.listener = listener;
     }
 
     @Override
     public Optional<Plan> plan(Fact goal, Problem problem) {
-        Graph graph = Graph.fromInitialState(problem.getInitialState());
-        int depth = 1;
-        while(depth < maxDepth) {
-            graph = graph.extendByOneLevel(problem);
-            // At each level we check if we have a plan and return if that's the case
-            Optional<Plan> plan = graph.extractPlan(goal);
-            if (plan.isPresent()) {
-                return plan;
-            }
-            depth++;
-        }
-        return Optional.empty();
+        return PlanningSession.open(problem, maxDepth, parallelismThreshold, listener).plan(goal);
+    }
+
+    @Override
+    public Optional<Plan> plan(Set<Fact> goals, Problem problem) {
+        return PlanningSession.open(problem, maxDepth, parallelismThreshold, listener).plan(goals);
+    }
+
+    @Override
+    public PlanningResult plan(Set<Fact> goals, Problem problem, CancellationToken token) {
+        return PlanningSession.open(problem, maxDepth, parallelismThreshold, listener).plan(goals, token);
     }
 }
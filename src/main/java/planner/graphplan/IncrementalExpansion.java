@@ -0,0 +1,122 @@
+package planner.graphplan;
+
+import knowledge.Bits;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps, for each ground action of a problem, how many positive preconditions are still
+ * missing and how many negative preconditions are currently violated.
+ * Propositions only grow from one level to the next, so when a level is added only the facts that are new in it
+ * are looked at: actions whose counters drop to zero get enabled and nothing else is re-tested.
+ */
+final class IncrementalExpansion {
+    private static final int[] NO_ACTIONS = new int[0];
+
+    private final ActionTable actionTable;
+    private final int[] groundedActions;
+    // Indexed by action id
+    private final int[] missingPreconditions;
+    private final int[] violatedPreconditions;
+    // Indexed by fact id: actions needing the fact, actions needing the fact to be absent
+    private final int[][] consumers;
+    private final int[][] negativeConsumers;
+
+    private long[] seenFacts = Bits.empty();
+    private long[] enabledActions = Bits.empty();
+    private long[] appliedActions = Bits.empty();
+
+    IncrementalExpansion(GroundProblem groundProblem, ActionTable actionTable) {
+        this.actionTable = actionTable;
+        this.groundedActions = groundProblem.getActions().stream().mapToInt(GroundAction::getId).toArray();
+        this.missingPreconditions = new int[groundedActions.length];
+        this.violatedPreconditions = new int[groundedActions.length];
+        List<List<Integer>> consumerLists = new ArrayList<>();
+        List<List<Integer>> negativeConsumerLists = new ArrayList<>();
+        for (int action : groundedActions) {
+            for (int pre : actionTable.preconditions(action)) {
+                if (SymbolTable.isPositive(pre)) {
+                    missingPreconditions[action]++;
+                    listFor(consumerLists, pre).add(action);
+                } else {
+                    listFor(negativeConsumerLists, SymbolTable.flip(pre)).add(action);
+                }
+            }
+            if (missingPreconditions[action] == 0) {
+                enabledActions = Bits.set(enabledActions, action);
+            }
+        }
+        int factCount = groundProblem.getSymbols().size();
+        this.consumers = toArrays(consumerLists, factCount);
+        this.negativeConsumers = toArrays(negativeConsumerLists, factCount);
+    }
+
+    /**
+     * Actions satisfied by the given propositions, which must contain the propositions of the previous call
+     */
+    long[] satisfiedActions(long[] propositions) {
+        for (int fact = Bits.nextSetBit(propositions, 0); fact >= 0; fact = Bits.nextSetBit(propositions, fact + 1)) {
+            if (Bits.get(seenFacts, fact)) {
+                continue;
+            }
+            seenFacts = Bits.set(seenFacts, fact);
+            for (int action : consumersOf(consumers, fact)) {
+                if (--missingPreconditions[action] == 0 && violatedPreconditions[action] == 0) {
+                    enabledActions = Bits.set(enabledActions, action);
+                }
+            }
+            for (int action : consumersOf(negativeConsumers, fact)) {
+                if (violatedPreconditions[action]++ == 0) {
+                    Bits.clear(enabledActions, action);
+                }
+            }
+        }
+        return Arrays.copyOf(enabledActions, enabledActions.length);
+    }
+
+    /**
+     * Propositions of the level following the one with the given propositions and satisfied actions.
+     * Effects of actions enabled at an earlier level are already in the propositions (carried by keep actions),
+     * so only the effects of the newly enabled ones are added.
+     */
+    long[] propositionsForNextLevel(long[] propositions, long[] satisfiedActions) {
+        long[] nextPropositions = Arrays.copyOf(propositions, propositions.length);
+        for (int action = Bits.nextSetBit(satisfiedActions, 0); action >= 0; action = Bits.nextSetBit(satisfiedActions, action + 1)) {
+            if (!Bits.get(appliedActions, action)) {
+                appliedActions = Bits.set(appliedActions, action);
+                for (int effect : actionTable.effects(action)) {
+                    nextPropositions = Bits.set(nextPropositions, effect);
+                }
+            }
+        }
+        return nextPropositions;
+    }
+
+    private static int[] consumersOf(int[][] index, int fact) {
+        return fact < index.length ? index[fact] : NO_ACTIONS;
+    }
+
+    private static List<Integer> listFor(List<List<Integer>> lists, int fact) {
+        while (lists.size() <= fact) {
+            lists.add(null);
+        }
+        if (lists.get(fact) == null) {
+            lists.set(fact, new ArrayList<>());
+        }
+        return lists.get(fact);
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists, int size) {
+        int[][] arrays = new int[Math.max(size, lists.size())][];
+        for (int i = 0; i < arrays.length; i++) {
+            List<Integer> list = i < lists.size() ? lists.get(i) : null;
+            arrays[i] = list == null ? NO_ACTIONS : list.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,170 @@
+package planner.graphplan;
+
+import knowledge.Bits;
+
+import java.util.Arrays;
+
+/**
+ * Symmetric mutex relation over dense ids (actions or facts), stored as one bitset row per id.
+ * Rows are only allocated for ids that have at least one mutex, so sparse levels stay small,
+ * and "is this id compatible with all the selected ones" is a word-wise AND against a row.
+ */
+public final class MutexMatrix {
+    private static final long[][] NO_ROWS = new long[0][];
+    private static final MutexMatrix EMPTY = new MutexMatrix(NO_ROWS, 0);
+
+    private final long[][] rows;
+    private final int pairCount;
+
+    private MutexMatrix(long[][] rows, int pairCount) {
+        this.rows = rows;
+        this.pairCount = pairCount;
+    }
+
+    public static MutexMatrix empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int size) {
+        return new Builder(size);
+    }
+
+    public boolean contains(int a, int b) {
+        return Bits.get(row(a), b);
+    }
+
+    /**
+     * Ids mutually exclusive with the given one, must not be modified
+     */
+    public long[] row(int a) {
+        long[] row = a < rows.length ? rows[a] : null;
+        return row == null ? Bits.empty() : row;
+    }
+
+    /**
+     * True if a is not mutex with any of the selected ids (a itself, if selected, is ignored)
+     */
+    public boolean compatibleWithAll(int a, long[] selected) {
+        long[] row = row(a);
+        int common = Math.min(row.length, selected.length);
+        int ownWord = a >>> 6;
+        for (int i = 0; i < common; i++) {
+            long conflicts = row[i] & selected[i];
+            if (i == ownWord) {
+                conflicts &= ~(1L << a);
+            }
+            if (conflicts != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if no two different selected ids are mutex
+     */
+    public boolean consistent(long[] selected) {
+        for (int a = Bits.nextSetBit(selected, 0); a >= 0; a = Bits.nextSetBit(selected, a + 1)) {
+            if (!compatibleWithAll(a, selected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of stored (unordered) pairs, an id mutex with itself counts once
+     */
+    public int pairCount() {
+        return pairCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof MutexMatrix)) {
+            return false;
+        }
+        MutexMatrix other = (MutexMatrix) o;
+        int longest = Math.max(rows.length, other.rows.length);
+        for (int i = 0; i < longest; i++) {
+            if (!Bits.equal(row(i), other.row(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < rows.length; i++) {
+            long[] row = rows[i];
+            if (row != null && Bits.cardinality(row) > 0) {
+                hash = 31 * hash + i;
+                hash = 31 * hash + Arrays.hashCode(Bits.toIds(row));
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != null && Bits.cardinality(rows[i]) > 0) {
+                builder.append(builder.length() > 1 ? ", " : "").append(i).append('=').append(Arrays.toString(Bits.toIds(rows[i])));
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    public static final class Builder {
+        private long[][] rows;
+        private int pairCount;
+
+        private Builder(int size) {
+            this.rows = size == 0 ? NO_ROWS : new long[size][];
+        }
+
+        /**
+         * Marks the pair in both directions
+         */
+        public Builder add(int a, int b) {
+            if (!Bits.get(row(a), b)) {
+                pairCount++;
+                set(a, b);
+                set(b, a);
+            }
+            return this;
+        }
+
+        public boolean contains(int a, int b) {
+            return Bits.get(row(a), b);
+        }
+
+        public MutexMatrix build() {
+            MutexMatrix matrix = pairCount == 0 ? EMPTY : new MutexMatrix(rows, pairCount);
+            rows = NO_ROWS;
+            pairCount = 0;
+            return matrix;
+        }
+
+        private long[] row(int a) {
+            long[] row = a < rows.length ? rows[a] : null;
+            return row == null ? Bits.empty() : row;
+        }
+
+        private void set(int a, int b) {
+            if (a >= rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(a + 1, 2 * rows.length));
+            }
+            if (rows[a] == null) {
+                rows[a] = new long[Bits.words(Math.max(rows.length, b + 1))];
+            }
+            rows[a] = Bits.set(rows[a], b);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package planner.graphplan;
+
+import planner.CancellationToken;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Goal sets found unachievable at a level, by level, during one planning call.
+ * Levels below the last one never change, so the entries stay valid as the graph is extended.
+ * It is owned by a single call: the termination test in PlanningSession compares how it grows from one
+ * extension to the next, which would be meaningless if other calls added to it.
+ * Being per call, it also counts the backtracks of the call for PlannerListener and holds its cancellation token.
+ */
+final class NogoodMemo {
+    // Extraction steps between two checks of the token, which may read the clock
+    private static final int STEPS_PER_CHECK = 1024;
+
+    private final Map<Integer, Set<BitSet>> nogoods = new HashMap<>();
+    private final CancellationToken token;
+    private long backtracks;
+    private int steps;
+
+    NogoodMemo() {
+        this(CancellationToken.none());
+    }
+
+    NogoodMemo(CancellationToken token) {
+        this.token = token;
+    }
+
+    CancellationToken getToken() {
+        return token;
+    }
+
+    /**
+     * Called at each extraction step, throws PlanningStopped once in a while if the token says to stop
+     */
+    void step() {
+        if (++steps == STEPS_PER_CHECK) {
+            steps = 0;
+            if (token.shouldStop()) {
+                throw new PlanningStopped();
+            }
+        }
+    }
+
+    boolean contains(int level, BitSet goal) {
+        Set<BitSet> atLevel = nogoods.get(level);
+        return atLevel != null && atLevel.contains(goal);
+    }
+
+    void add(int level, BitSet goal) {
+        nogoods.computeIfAbsent(level, l -> new HashSet<>()).add(goal);
+    }
+
+    /**
+     * Number of goal sets known to be unachievable at the given level
+     */
+    int count(int level) {
+        Set<BitSet> atLevel = nogoods.get(level);
+        return atLevel == null ? 0 : atLevel.size();
+    }
+
+    void backtracked() {
+        backtracks++;
+    }
+
+    long getBacktracks() {
+        return backtracks;
+    }
+}
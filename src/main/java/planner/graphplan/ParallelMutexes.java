@@ -0,0 +1,107 @@
+package planner.graphplan;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs a mutex pass row by row: each row (an action or a fact) reports the pairs it is part of without looking at
+ * the pairs found by the other rows. Above the threshold the rows are split in blocks computed on the common
+ * fork-join pool, each block collecting its pairs in its own buffer, and the buffers are then added to the matrix in
+ * row order. A MutexMatrix is a set of pairs, so the result is the same as the sequential one.
+ */
+final class ParallelMutexes {
+    /**
+     * Passes over fewer rows than this stay on the calling thread
+     */
+    static final int DEFAULT_THRESHOLD = 256;
+    // Most rows computed by one fork-join task, lower thresholds give smaller blocks
+    private static final int BLOCK_SIZE = 32;
+
+    interface RowScan {
+        void scan(int row, PairSink pairs);
+    }
+
+    interface PairSink {
+        void add(int a, int b);
+    }
+
+    private ParallelMutexes() {
+    }
+
+    static void scan(int[] rows, int threshold, RowScan rowScan, MutexMatrix.Builder mutexes) {
+        if (rows.length == 0 || rows.length < threshold) {
+            for (int row : rows) {
+                rowScan.scan(row, mutexes::add);
+            }
+            return;
+        }
+        int blockSize = Math.max(1, Math.min(BLOCK_SIZE, threshold));
+        ForkJoinPool.commonPool().invoke(new RowBlock(rows, 0, rows.length, blockSize, rowScan)).addTo(mutexes);
+    }
+
+    /**
+     * Pairs found by a block of rows, in the order they were found
+     */
+    private static final class Pairs implements PairSink {
+        private int[] ids = new int[16];
+        private int size;
+        private Pairs next;
+
+        @Override
+        public void add(int a, int b) {
+            if (size + 2 > ids.length) {
+                ids = Arrays.copyOf(ids, 2 * ids.length);
+            }
+            ids[size++] = a;
+            ids[size++] = b;
+        }
+
+        void addTo(MutexMatrix.Builder mutexes) {
+            for (Pairs pairs = this; pairs != null; pairs = pairs.next) {
+                for (int i = 0; i < pairs.size; i += 2) {
+                    mutexes.add(pairs.ids[i], pairs.ids[i + 1]);
+                }
+            }
+        }
+    }
+
+    private static final class RowBlock extends RecursiveTask<Pairs> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] rows;
+        private final int from;
+        private final int to;
+        private final int blockSize;
+        private final RowScan rowScan;
+
+        RowBlock(int[] rows, int from, int to, int blockSize, RowScan rowScan) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.blockSize = blockSize;
+            this.rowScan = rowScan;
+        }
+
+        @Override
+        protected Pairs compute() {
+            if (to - from <= blockSize) {
+                Pairs pairs = new Pairs();
+                for (int i = from; i < to; i++) {
+                    rowScan.scan(rows[i], pairs);
+                }
+                return pairs;
+            }
+            int middle = (from + to) >>> 1;
+            RowBlock right = new RowBlock(rows, middle, to, blockSize, rowScan);
+            right.fork();
+            Pairs left = new RowBlock(rows, from, middle, blockSize, rowScan).compute();
+            Pairs last = left;
+            while (last.next != null) {
+                last = last.next;
+            }
+            last.next = right.join();
+            return left;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package planner.graphplan;
+
+import com.google.common.collect.ImmutableSet;
+import knowledge.Fact;
+import knowledge.GroundProblem;
+import knowledge.Problem;
+import planner.CancellationToken;
+import planner.Plan;
+import planner.PlannerListener;
+import planner.PlanningResult;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Plans any number of goals against one problem: the problem is grounded once and the planning graph is only
+ * extended when a goal needs more levels than any previous one, so asking again for an already planned goal only
+ * costs plan extraction. Sessions can be used from many threads at once.
+ */
+public final class PlanningSession {
+    private final Problem problem;
+    private final Graph graph;
+    private final int maxDepth;
+
+    private PlanningSession(Problem problem, int maxDepth, int parallelismThreshold, PlannerListener listener) {
+        this.problem = problem;
+        this.graph = Graph.fromGroundProblem(ground(problem, listener), parallelismThreshold, listener);
+        this.maxDepth = maxDepth;
+    }
+
+    public static PlanningSession open(Problem problem, int maxDepth) {
+        return open(problem, maxDepth, ParallelMutexes.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * See {@link GraphplanPlanner#GraphplanPlanner(int, int)} for the parallelism threshold
+     */
+    public static PlanningSession open(Problem problem, int maxDepth, int parallelismThreshold) {
+        return open(problem, maxDepth, parallelismThreshold, PlannerListener.NONE);
+    }
+
+    /**
+     * Same as above, grounding, graph extensions and plan extractions being reported to the listener
+     */
+    public static PlanningSession open(Problem problem, int maxDepth, int parallelismThreshold, PlannerListener listener) {
+        return new PlanningSession(problem, maxDepth, parallelismThreshold, listener);
+    }
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public Optional<Plan> plan(Fact goal) {
+        return plan(ImmutableSet.of(goal));
+    }
+
+    /**
+     * Shortest plan (in levels) achieving all the goals, empty if there is none within the maximum depth
+     */
+    public Optional<Plan> plan(Set<Fact> goals) {
+        return plan(goals, CancellationToken.none()).getPlan();
+    }
+
+    /**
+     * Same as above, giving up as soon as the token says so. The result tells a goal proven unreachable
+     * (the graph leveled off without the goal getting closer) from one out of the maximum depth
+     */
+    public PlanningResult plan(Set<Fact> goals, CancellationToken token) {
+        long start = System.nanoTime();
+        NogoodMemo nogoods = new NogoodMemo(token);
+        int nogoodsAtLevelOff = -1;
+        int level = 0;
+        try {
+            for (level = 1; level < maxDepth; level++) {
+                if (token.shouldStop()) {
+                    throw new PlanningStopped();
+                }
+                graph.extendTo(level, token);
+                // At each level we check if we have a plan and return if that's the case
+                Optional<Plan> plan = graph.extractPlan(goals, level, nogoods);
+                if (plan.isPresent()) {
+                    return result(PlanningResult.Status.SOLVED, plan, level, start);
+                }
+                if (graph.hasLeveledOff() && graph.getLevelOff() < level) {
+                    // Once the graph has leveled off, an extension that teaches nothing new about the
+                    // level-off level proves no later extension can (Blum & Furst termination test)
+                    int count = nogoods.count(graph.getLevelOff());
+                    if (count == nogoodsAtLevelOff) {
+                        return result(PlanningResult.Status.UNSOLVABLE, Optional.empty(), level, start);
+                    }
+                    nogoodsAtLevelOff = count;
+                }
+            }
+            return result(PlanningResult.Status.EXHAUSTED, Optional.empty(), level - 1, start);
+        } catch (PlanningStopped e) {
+            return result(token.stopStatus(), Optional.empty(), level, start);
+        }
+    }
+
+    private static PlanningResult result(PlanningResult.Status status, Optional<Plan> plan, int level, long start) {
+        return PlanningResult.builder()
+                .setStatus(status)
+                .setPlan(plan)
+                .setDeepestLevel(level)
+                .setElapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    private static GroundProblem ground(Problem problem, PlannerListener listener) {
+        if (listener == PlannerListener.NONE) {
+            return problem.getGroundProblem();
+        }
+        long start = System.nanoTime();
+        GroundProblem groundProblem = problem.getGroundProblem();
+        listener.problemGrounded(groundProblem.getActions().size(), groundProblem.getSymbols().size(), System.nanoTime() - start);
+        return groundProblem;
+    }
+}
@@ -0,0 +1,13 @@
+package planner.graphplan;
+
+/**
+ * Thrown out of graph extension or plan extraction when the cancellation token of the call says to stop,
+ * caught by PlanningSession. Nothing is recorded for the work abandoned, so the graph and the nogoods stay valid.
+ */
+final class PlanningStopped extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    PlanningStopped() {
+        super("Planning stopped", null, false, false);
+    }
+}
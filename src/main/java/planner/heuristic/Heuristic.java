@@ -0,0 +1,11 @@
+package planner.heuristic;
+
+/**
+ * Goal distance estimates computed on the delete relaxation of the problem (see RelaxedReachability)
+ */
+public enum Heuristic {
+    // Sum of the costs of the goals, each fact costing one more than the cheapest way to achieve it
+    ADD,
+    // Number of actions of a relaxed plan built from the cheapest achievers found for ADD
+    FF
+}
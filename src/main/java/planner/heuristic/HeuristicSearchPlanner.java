@@ -0,0 +1,229 @@
+package planner.heuristic;
+
+import com.google.common.collect.ImmutableSet;
+import knowledge.Bits;
+import knowledge.Fact;
+import knowledge.GroundProblem;
+import knowledge.Predicate;
+import knowledge.Problem;
+import knowledge.SymbolTable;
+import planner.CancellationToken;
+import planner.Plan;
+import planner.Planner;
+import planner.PlanningResult;
+
+import java.util.*;
+
+/**
+ * Forward search in the space of states, guided by a delete relaxation heuristic (see RelaxedReachability).
+ * States are ordered by g + weight * h: weight 1 is A*, larger weights trade plan length for speed and
+ * greedy best first search ignores g altogether. States already reached are not expanded again unless
+ * (with g in the ordering) they are reached through a shorter path, and states from which the goals are
+ * unreachable even ignoring deletes are dropped.
+ * With helpful actions only the actions starting the relaxed plan of a state are tried from it. That can miss
+ * plans, so if that search fails it is repeated with every action. That last search only drops states the goals
+ * can't be reached from, so when it fails the goals are proven unreachable.
+ */
+public class HeuristicSearchPlanner implements Planner {
+    // Weight making the search greedy best first
+    public static final double GREEDY = Double.POSITIVE_INFINITY;
+    // Expansions between two checks of the cancellation token, which may read the clock
+    private static final int EXPANSIONS_PER_CHECK = 256;
+
+    private final Heuristic heuristic;
+    private final double weight;
+    private final boolean helpfulActions;
+
+    public HeuristicSearchPlanner(Heuristic heuristic, double weight, boolean helpfulActions) {
+        this.heuristic = heuristic;
+        this.weight = weight;
+        this.helpfulActions = helpfulActions;
+    }
+
+    /**
+     * Greedy best first search on h_FF with helpful actions, the usual setup for large problems
+     */
+    public static HeuristicSearchPlanner greedy() {
+        return new HeuristicSearchPlanner(Heuristic.FF, GREEDY, true);
+    }
+
+    public static HeuristicSearchPlanner weightedAStar(Heuristic heuristic, double weight) {
+        return new HeuristicSearchPlanner(heuristic, weight, false);
+    }
+
+    @Override
+    public Optional<Plan> plan(Set<Fact> goals, Problem problem) {
+        return plan(goals, problem, CancellationToken.none()).getPlan();
+    }
+
+    @Override
+    public PlanningResult plan(Set<Fact> goals, Problem problem, CancellationToken token) {
+        GroundProblem groundProblem = problem.getGroundProblem();
+        return planFrom(new StateSpace(groundProblem).initialState(), goals, groundProblem, token);
+    }
+
+    /**
+     * Plan from another state than the initial one, with the actions already grounded. The state is the bitset of
+     * the positive fact ids that hold. Actions that were not reachable from the initial state are not known here
+     */
+    public PlanningResult planFrom(long[] state, Set<Fact> goals, GroundProblem groundProblem, CancellationToken token) {
+        long start = System.nanoTime();
+        SymbolTable symbols = groundProblem.getSymbols();
+        List<Integer> positiveGoals = new ArrayList<>();
+        List<Integer> negativeGoals = new ArrayList<>();
+        for (Fact goal : goals) {
+            int id = symbols.idIfPresent(goal);
+            if (id == SymbolTable.NOT_PRESENT) {
+                // A fact nothing talks about is never true
+                if (goal.getSign()) {
+                    return result(PlanningResult.Status.UNSOLVABLE, Optional.empty(), 0, start);
+                }
+            } else if (SymbolTable.isPositive(id)) {
+                positiveGoals.add(id);
+            } else {
+                negativeGoals.add(SymbolTable.flip(id));
+            }
+        }
+        Search search = new Search(new StateSpace(groundProblem), state,
+                positiveGoals.stream().mapToInt(Integer::intValue).toArray(),
+                negativeGoals.stream().mapToInt(Integer::intValue).toArray(), token);
+        Optional<Plan> plan = search.run(helpfulActions);
+        if (!plan.isPresent() && helpfulActions && !search.stopped) {
+            plan = search.run(false);
+        }
+        if (plan.isPresent()) {
+            return result(PlanningResult.Status.SOLVED, plan, search.deepest, start);
+        }
+        return result(search.stopped ? token.stopStatus() : PlanningResult.Status.UNSOLVABLE, plan, search.deepest, start);
+    }
+
+    private static PlanningResult result(PlanningResult.Status status, Optional<Plan> plan, int deepest, long start) {
+        return PlanningResult.builder()
+                .setStatus(status)
+                .setPlan(plan)
+                .setDeepestLevel(deepest)
+                .setElapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    private static final class Node {
+        private final long[] state;
+        private final Node parent;
+        private final int action;
+        private final int g;
+        private final int h;
+        private final double priority;
+        // Creation order, to break ties first in first out
+        private final long order;
+        private long[] helpful;
+
+        Node(long[] state, Node parent, int action, int g, int h, double priority, long order) {
+            this.state = state;
+            this.parent = parent;
+            this.action = action;
+            this.g = g;
+            this.h = h;
+            this.priority = priority;
+            this.order = order;
+        }
+    }
+
+    private final class Search {
+        private final StateSpace space;
+        private final long[] start;
+        private final RelaxedReachability relaxation;
+        private final int[] positiveGoals;
+        private final int[] negativeGoals;
+        private final long[] allActions;
+        private final CancellationToken token;
+        private long created;
+        // Largest g of the expanded states
+        private int deepest;
+        private boolean stopped;
+
+        Search(StateSpace space, long[] start, int[] positiveGoals, int[] negativeGoals, CancellationToken token) {
+            this.space = space;
+            this.start = start;
+            this.token = token;
+            this.relaxation = new RelaxedReachability(space);
+            this.positiveGoals = positiveGoals;
+            this.negativeGoals = negativeGoals;
+            long[] actions = Bits.empty();
+            for (int action = 0; action < space.actionCount(); action++) {
+                actions = Bits.set(actions, action);
+            }
+            this.allActions = actions;
+        }
+
+        Optional<Plan> run(boolean onlyHelpful) {
+            PriorityQueue<Node> open = new PriorityQueue<>(Comparator.<Node>comparingDouble(n -> n.priority)
+                    .thenComparingInt(n -> n.h)
+                    .thenComparingLong(n -> n.order));
+            Map<BitSet, Integer> bestG = new HashMap<>();
+            Node root = node(start, null, -1, 0, onlyHelpful);
+            if (root == null) {
+                return Optional.empty();
+            }
+            open.add(root);
+            bestG.put(BitSet.valueOf(root.state), 0);
+            long expansions = 0;
+            while (!open.isEmpty()) {
+                if (++expansions % EXPANSIONS_PER_CHECK == 0 && token.shouldStop()) {
+                    stopped = true;
+                    return Optional.empty();
+                }
+                Node current = open.poll();
+                if (bestG.get(BitSet.valueOf(current.state)) < current.g) {
+                    continue;
+                }
+                deepest = Math.max(deepest, current.g);
+                if (StateSpace.satisfies(current.state, positiveGoals, negativeGoals)) {
+                    return Optional.of(toPlan(current));
+                }
+                long[] candidates = onlyHelpful ? current.helpful : allActions;
+                for (int action = Bits.nextSetBit(candidates, 0); action >= 0; action = Bits.nextSetBit(candidates, action + 1)) {
+                    if (!space.applicable(current.state, action)) {
+                        continue;
+                    }
+                    long[] next = space.apply(current.state, action);
+                    BitSet key = BitSet.valueOf(next);
+                    Integer known = bestG.get(key);
+                    int g = current.g + 1;
+                    if (known != null && (weight == GREEDY || known <= g)) {
+                        continue;
+                    }
+                    Node child = node(next, current, action, g, onlyHelpful);
+                    bestG.put(key, g);
+                    if (child != null) {
+                        open.add(child);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+
+        /**
+         * Evaluated node, null if the goals can't be reached from its state
+         */
+        private Node node(long[] state, Node parent, int action, int g, boolean onlyHelpful) {
+            int h = relaxation.evaluate(state, positiveGoals, heuristic);
+            if (h == RelaxedReachability.UNREACHABLE) {
+                return null;
+            }
+            double priority = weight == GREEDY ? h : g + weight * h;
+            Node node = new Node(state, parent, action, g, h, priority, created++);
+            if (onlyHelpful) {
+                node.helpful = relaxation.helpfulActions();
+            }
+            return node;
+        }
+
+        private Plan toPlan(Node node) {
+            LinkedList<Predicate> sequence = new LinkedList<>();
+            for (Node n = node; n.parent != null; n = n.parent) {
+                sequence.addFirst(space.getGroundProblem().getAction(n.action).getPredicate());
+            }
+            return Plan.builder().setSequence(sequence).build();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package planner.heuristic;
+
+import knowledge.Bits;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cost of reaching facts from a state when delete effects and negative preconditions are ignored.
+ * Each fact costs one more than the cheapest action adding it, an action costing the sum of its preconditions
+ * (h_add). A relaxed plan is then extracted backwards from the goals following the cheapest achievers: its length
+ * is the FF estimate and its actions applicable in the state are the helpful actions.
+ * Scratch arrays are reused between evaluations, so an instance must only be used by one search at a time.
+ */
+final class RelaxedReachability {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NO_ACTION = -1;
+
+    private final StateSpace space;
+    private final int factCount;
+    // Indexed by fact id: actions with the fact as positive precondition
+    private final int[][] consumers;
+    private final int[] actionsWithoutPreconditions;
+
+    private final int[] factCost;
+    private final int[] bestSupporter;
+    private final int[] actionCost;
+    private final int[] missingPreconditions;
+    // Facts to settle by cost, a fact is pushed again when its cost drops and the stale entries are skipped
+    private int[][] buckets = new int[16][];
+    private int[] bucketSizes = new int[16];
+    private int highestBucket;
+    private final boolean[] inRelaxedPlan;
+    private final List<Integer> relaxedPlan = new ArrayList<>();
+
+    RelaxedReachability(StateSpace space) {
+        this.space = space;
+        this.factCount = space.getGroundProblem().getSymbols().size();
+        int actionCount = space.actionCount();
+        List<List<Integer>> consumerLists = new ArrayList<>();
+        for (int i = 0; i < factCount; i++) {
+            consumerLists.add(new ArrayList<>());
+        }
+        List<Integer> free = new ArrayList<>();
+        for (int action = 0; action < actionCount; action++) {
+            int[] preconditions = space.positivePreconditions(action);
+            if (preconditions.length == 0) {
+                free.add(action);
+            }
+            for (int fact : preconditions) {
+                consumerLists.get(fact).add(action);
+            }
+        }
+        this.consumers = new int[factCount][];
+        for (int fact = 0; fact < factCount; fact++) {
+            consumers[fact] = consumerLists.get(fact).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.actionsWithoutPreconditions = free.stream().mapToInt(Integer::intValue).toArray();
+        this.factCost = new int[factCount];
+        this.bestSupporter = new int[factCount];
+        this.actionCost = new int[actionCount];
+        this.missingPreconditions = new int[actionCount];
+        this.inRelaxedPlan = new boolean[actionCount];
+    }
+
+    /**
+     * Estimated distance from the state to the positive goals, UNREACHABLE if some goal can't be reached
+     * even ignoring deletes. The relaxed plan of the last evaluation is kept for helpfulActions
+     */
+    int evaluate(long[] state, int[] goals, Heuristic heuristic) {
+        clearRelaxedPlan();
+        for (int goal : goals) {
+            if (goal >= factCount) {
+                return UNREACHABLE;
+            }
+        }
+        computeCosts(state);
+        int sum = 0;
+        for (int goal : goals) {
+            if (factCost[goal] == UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            sum += factCost[goal];
+        }
+        extractRelaxedPlan(goals);
+        return heuristic == Heuristic.ADD ? sum : relaxedPlan.size();
+    }
+
+    /**
+     * Actions of the last relaxed plan that only need facts of the evaluated state (deletes still ignored)
+     */
+    long[] helpfulActions() {
+        long[] helpful = Bits.empty();
+        for (int action : relaxedPlan) {
+            if (actionCost[action] == 0) {
+                helpful = Bits.set(helpful, action);
+            }
+        }
+        return helpful;
+    }
+
+    private void computeCosts(long[] state) {
+        Arrays.fill(factCost, UNREACHABLE);
+        Arrays.fill(bestSupporter, NO_ACTION);
+        Arrays.fill(actionCost, 0);
+        for (int action = 0; action < missingPreconditions.length; action++) {
+            missingPreconditions[action] = space.positivePreconditions(action).length;
+        }
+        highestBucket = 0;
+        for (int fact = Bits.nextSetBit(state, 0); fact >= 0 && fact < factCount; fact = Bits.nextSetBit(state, fact + 1)) {
+            factCost[fact] = 0;
+            push(0, fact);
+        }
+        for (int action : actionsWithoutPreconditions) {
+            achieve(action);
+        }
+        // An action costs at least as much as its last settled precondition, so what it adds goes in a later bucket
+        for (int cost = 0; cost <= highestBucket; cost++) {
+            for (int i = 0; i < bucketSizes[cost]; i++) {
+                int fact = buckets[cost][i];
+                if (cost > factCost[fact]) {
+                    continue;
+                }
+                for (int action : consumers[fact]) {
+                    actionCost[action] += cost;
+                    if (--missingPreconditions[action] == 0) {
+                        achieve(action);
+                    }
+                }
+            }
+            bucketSizes[cost] = 0;
+        }
+    }
+
+    private void achieve(int action) {
+        int cost = actionCost[action] + 1;
+        for (int fact : space.addEffects(action)) {
+            if (cost < factCost[fact]) {
+                factCost[fact] = cost;
+                bestSupporter[fact] = action;
+                push(cost, fact);
+            }
+        }
+    }
+
+    private void extractRelaxedPlan(int[] goals) {
+        int[] stack = new int[16];
+        int size = 0;
+        for (int goal : goals) {
+            stack = push(stack, size++, goal);
+        }
+        while (size > 0) {
+            int fact = stack[--size];
+            int action = bestSupporter[fact];
+            if (factCost[fact] == 0 || action == NO_ACTION || inRelaxedPlan[action]) {
+                continue;
+            }
+            inRelaxedPlan[action] = true;
+            relaxedPlan.add(action);
+            for (int pre : space.positivePreconditions(action)) {
+                stack = push(stack, size++, pre);
+            }
+        }
+    }
+
+    private void clearRelaxedPlan() {
+        for (int action : relaxedPlan) {
+            inRelaxedPlan[action] = false;
+        }
+        relaxedPlan.clear();
+    }
+
+    private static int[] push(int[] stack, int size, int fact) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * stack.length);
+        }
+        stack[size] = fact;
+        return stack;
+    }
+
+    private void push(int cost, int fact) {
+        if (cost >= buckets.length) {
+            int length = Math.max(cost + 1, 2 * buckets.length);
+            buckets = Arrays.copyOf(buckets, length);
+            bucketSizes = Arrays.copyOf(bucketSizes, length);
+        }
+        if (buckets[cost] == null) {
+            buckets[cost] = new int[16];
+        } else if (bucketSizes[cost] == buckets[cost].length) {
+            buckets[cost] = Arrays.copyOf(buckets[cost], 2 * buckets[cost].length);
+        }
+        buckets[cost][bucketSizes[cost]++] = fact;
+        highestBucket = Math.max(highestBucket, cost);
+    }
+}
@@ -0,0 +1,112 @@
+package planner.heuristic;
+
+import knowledge.Bits;
+import knowledge.GroundAction;
+import knowledge.GroundProblem;
+import knowledge.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * Ground actions of a problem seen as state transitions. A state is the bitset of the positive fact ids that hold,
+ * everything else is false: a negative precondition asks for its positive fact to be absent and a negative effect
+ * (constraint consequents included) removes it.
+ */
+final class StateSpace {
+    private final GroundProblem groundProblem;
+    // Indexed by action id, all facts as positive ids
+    private final int[][] positivePreconditions;
+    private final int[][] negativePreconditions;
+    private final int[][] addEffects;
+    private final int[][] deleteEffects;
+
+    StateSpace(GroundProblem groundProblem) {
+        this.groundProblem = groundProblem;
+        int actionCount = groundProblem.getActions().size();
+        this.positivePreconditions = new int[actionCount][];
+        this.negativePreconditions = new int[actionCount][];
+        this.addEffects = new int[actionCount][];
+        this.deleteEffects = new int[actionCount][];
+        for (GroundAction action : groundProblem.getActions()) {
+            positivePreconditions[action.getId()] = action.getPositivePreconditions();
+            negativePreconditions[action.getId()] = action.getNegativePreconditions();
+            addEffects[action.getId()] = action.getAddEffects();
+            deleteEffects[action.getId()] = action.getDeleteEffects();
+        }
+    }
+
+    GroundProblem getGroundProblem() {
+        return groundProblem;
+    }
+
+    int actionCount() {
+        return positivePreconditions.length;
+    }
+
+    /**
+     * Positive facts of the initial state
+     */
+    long[] initialState() {
+        long[] state = Bits.empty();
+        long[] initial = groundProblem.getInitialState();
+        for (int fact = Bits.nextSetBit(initial, 0); fact >= 0; fact = Bits.nextSetBit(initial, fact + 1)) {
+            if (SymbolTable.isPositive(fact)) {
+                state = Bits.set(state, fact);
+            }
+        }
+        return state;
+    }
+
+    boolean applicable(long[] state, int action) {
+        for (int fact : positivePreconditions[action]) {
+            if (!Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        for (int fact : negativePreconditions[action]) {
+            if (Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * State reached applying the action, deletes first and then adds. The given state is not modified
+     */
+    long[] apply(long[] state, int action) {
+        long[] next = Arrays.copyOf(state, state.length);
+        for (int fact : deleteEffects[action]) {
+            Bits.clear(next, fact);
+        }
+        for (int fact : addEffects[action]) {
+            next = Bits.set(next, fact);
+        }
+        return next;
+    }
+
+    /**
+     * True if every positive goal holds and no negative goal (given as positive id) does
+     */
+    static boolean satisfies(long[] state, int[] positiveGoals, int[] negativeGoals) {
+        for (int fact : positiveGoals) {
+            if (!Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        for (int fact : negativeGoals) {
+            if (Bits.get(state, fact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int[] positivePreconditions(int action) {
+        return positivePreconditions[action];
+    }
+
+    int[] addEffects(int action) {
+        return addEffects[action];
+    }
+}
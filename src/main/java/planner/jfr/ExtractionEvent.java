@@ -0,0 +1,24 @@
+package planner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("planner.Extraction")
+@Label("Plan Extraction")
+@Category("Planner")
+final class ExtractionEvent extends jdk.jfr.Event {
+    @Label("Level")
+    int level;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Extraction Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long extractionTime;
+}
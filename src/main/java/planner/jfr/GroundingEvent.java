@@ -0,0 +1,21 @@
+package planner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("planner.Grounding")
+@Label("Grounding")
+@Category("Planner")
+final class GroundingEvent extends jdk.jfr.Event {
+    @Label("Ground Actions")
+    int groundActions;
+
+    @Label("Ground Facts")
+    int groundFacts;
+
+    @Label("Grounding Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long groundingTime;
+}
@@ -0,0 +1,60 @@
+package planner.jfr;
+
+import planner.PlannerListener;
+
+/**
+ * Reports planner work as Java Flight Recorder events of the "Planner" category. Events are only filled in and
+ * committed while a recording has them enabled, e.g. with -XX:StartFlightRecording or from JDK Mission Control.
+ * The event classes need a JVM with JFR (8u262 or later).
+ */
+public final class JfrPlannerListener implements PlannerListener {
+
+    @Override
+    public void problemGrounded(int groundActions, int groundFacts, long duration) {
+        GroundingEvent event = new GroundingEvent();
+        if (event.isEnabled()) {
+            event.groundActions = groundActions;
+            event.groundFacts = groundFacts;
+            event.groundingTime = duration;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void levelExtended(int level, int actions, int propositions, long duration) {
+        LevelExtensionEvent event = new LevelExtensionEvent();
+        if (event.isEnabled()) {
+            event.level = level;
+            event.actions = actions;
+            event.propositions = propositions;
+            event.extensionTime = duration;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void mutexesComputed(int level, int actionMutexPairs, int propositionMutexPairs,
+                                long actionMutexDuration, long propositionMutexDuration) {
+        MutexEvent event = new MutexEvent();
+        if (event.isEnabled()) {
+            event.level = level;
+            event.actionMutexPairs = actionMutexPairs;
+            event.propositionMutexPairs = propositionMutexPairs;
+            event.actionMutexDuration = actionMutexDuration;
+            event.propositionMutexDuration = propositionMutexDuration;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void planExtracted(int level, boolean found, long backtracks, long duration) {
+        ExtractionEvent event = new ExtractionEvent();
+        if (event.isEnabled()) {
+            event.level = level;
+            event.found = found;
+            event.backtracks = backtracks;
+            event.extractionTime = duration;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package planner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("planner.LevelExtension")
+@Label("Level Extension")
+@Category("Planner")
+final class LevelExtensionEvent extends jdk.jfr.Event {
+    @Label("Level")
+    int level;
+
+    @Label("Actions")
+    int actions;
+
+    @Label("Propositions")
+    int propositions;
+
+    @Label("Extension Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long extensionTime;
+}
@@ -0,0 +1,28 @@
+package planner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("planner.Mutexes")
+@Label("Mutexes")
+@Category("Planner")
+final class MutexEvent extends jdk.jfr.Event {
+    @Label("Level")
+    int level;
+
+    @Label("Action Mutex Pairs")
+    int actionMutexPairs;
+
+    @Label("Proposition Mutex Pairs")
+    int propositionMutexPairs;
+
+    @Label("Action Mutex Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long actionMutexDuration;
+
+    @Label("Proposition Mutex Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long propositionMutexDuration;
+}
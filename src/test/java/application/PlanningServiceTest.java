@@ -0,0 +1,44 @@
+package application;
+
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import org.junit.Test;
+import planner.PlanningResult;
+import planner.graphplan.GraphplanPlanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class PlanningServiceTest {
+
+    @Test
+    public void testEqualProblemsAreGroundedOnce() throws Exception {
+        try (PlanningService service = PlanningService.create(new GraphplanPlanner(Integer.MAX_VALUE), 4, 8)) {
+            List<CompletableFuture<PlanningResult>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // A new but equal problem each time
+                GeneratedProblem problem = Domains.gripper(2, i % 3);
+                results.add(service.submit(problem.getProblem(), problem.getGoals()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                PlanningResult result = results.get(i).get();
+                assertThat(result.getStatus()).isEqualTo(PlanningResult.Status.SOLVED);
+                assertThat(result.getPlan()).isEqualTo(results.get(i % 3).get().getPlan());
+            }
+            assertThat(service.problemCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        GeneratedProblem problem = Domains.blocksworld(40, 1);
+        try (PlanningService service = PlanningService.create(new GraphplanPlanner(Integer.MAX_VALUE))) {
+            PlanningResult result = service.submit(problem.getProblem(), problem.getGoals(), 100, TimeUnit.MILLISECONDS).get();
+            assertThat(result.getStatus()).isEqualTo(PlanningResult.Status.TIMED_OUT);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package corpus;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.util.List;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class CorpusRunnerTest {
+
+    @Test
+    public void testSameSeedSameProblem() {
+        for (String domain : ImmutableList.of(Domains.BLOCKSWORLD, Domains.GRIPPER, Domains.LOGISTICS)) {
+            GeneratedProblem problem = Domains.generate(domain, 10, 7);
+            assertThat(Domains.generate(domain, 10, 7)).isEqualTo(problem);
+            assertThat(Domains.generate(domain, 10, 8).getProblem()).isNotEqualTo(problem.getProblem());
+        }
+    }
+
+    @Test
+    public void testSolveCorpus() {
+        List<GeneratedProblem> corpus = CorpusRunner.corpus(
+                ImmutableList.of(Domains.BLOCKSWORLD, Domains.GRIPPER, Domains.LOGISTICS),
+                ImmutableList.of(6), ImmutableList.of(1L, 2L));
+        List<RunResult> results = new CorpusRunner(HeuristicSearchPlanner.greedy()).run(corpus);
+        assertThat(results.size()).isEqualTo(6);
+        for (RunResult result : results) {
+            assertThat(result.isSolved()).isTrue();
+            assertThat(result.getGroundActions()).isGreaterThan(0);
+            assertThat(RunResult.parseCsv(result.toCsv()).getPlanLength()).isEqualTo(result.getPlanLength());
+        }
+        assertThat(CorpusRunner.regressions(results, results, 0).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testRegressions() {
+        RunResult before = RunResult.builder()
+                .setProblem("gripper-4-1")
+                .setSolved(true)
+                .setPlanLength(11)
+                .setGroundActions(34)
+                .setGroundFacts(40)
+                .setWallMillis(10)
+                .setPeakHeapBytes(1000)
+                .build();
+        RunResult longer = RunResult.builder()
+                .setProblem("gripper-4-1")
+                .setSolved(true)
+                .setPlanLength(13)
+                .setGroundActions(34)
+                .setGroundFacts(40)
+                .setWallMillis(10)
+                .setPeakHeapBytes(1000)
+                .build();
+        assertThat(CorpusRunner.regressions(ImmutableList.of(before), ImmutableList.of(longer), 0.5))
+                .isEqualTo(ImmutableList.of("gripper-4-1: plan length 11 -> 13"));
+        assertThat(CorpusRunner.regressions(ImmutableList.of(before), ImmutableList.of(), 0.5))
+                .isEqualTo(ImmutableList.of("gripper-4-1: missing"));
+    }
+}
@@ -0,0 +1,110 @@
+package executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import knowledge.Fact;
+import knowledge.Predicate;
+import knowledge.Problem;
+import org.junit.Test;
+import planner.Plan;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+import static org.assertj.core.api.StrictAssertions.fail;
+
+public class ExecutionJournalTest {
+
+    @Test
+    public void testRecoversWithoutClose() throws IOException {
+        GeneratedProblem generated = Domains.blocksworld(6, 3);
+        Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+        Path file = Files.createTempFile("executor", ".journal");
+        Files.delete(file);
+        try {
+            RobotPlannerExecutor executor = RobotPlannerExecutor.journaled(generated.getProblem(), file);
+            executor.executePlan(plan);
+            executor.undoMove();
+            executor.undoMove();
+            executor.redoMove();
+            Set<Fact> expected = ImmutableSet.copyOf(executor.getExpectedWorldState().getState());
+            // Not closed, as if the process had died
+            RobotPlannerExecutor recovered = RobotPlannerExecutor.journaled(generated.getProblem(), file);
+            assertThat(recovered.getExpectedWorldState().getState()).isEqualTo(expected);
+            Predicate last = plan.getSequence().get(plan.getSequence().size() - 1);
+            assertThat(recovered.redoMove().getSequence()).isEqualTo(ImmutableList.of(last));
+            assertThat(recovered.undoMove().getSequence()).isEqualTo(ImmutableList.of(last));
+            recovered.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testHistoryIsBounded() throws IOException {
+        GeneratedProblem generated = Domains.blocksworld(6, 3);
+        Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+        Path file = Files.createTempFile("executor", ".journal");
+        Files.delete(file);
+        try {
+            RobotPlannerExecutor first = RobotPlannerExecutor.journaled(generated.getProblem(), file, 3, 2);
+            first.executePlan(plan);
+            Set<Fact> expected = ImmutableSet.copyOf(first.getExpectedWorldState().getState());
+            first.close();
+            long size = Files.size(file);
+            for (int round = 0; round < 20; round++) {
+                RobotPlannerExecutor executor = RobotPlannerExecutor.journaled(generated.getProblem(), file, 3, 2);
+                // Back and forth, the journal gets a record per move
+                for (int i = 0; i < 10; i++) {
+                    while (!executor.undoMove().getSequence().isEmpty()) {
+                    }
+                    while (!executor.redoMove().getSequence().isEmpty()) {
+                    }
+                }
+                executor.close();
+            }
+            RobotPlannerExecutor executor = RobotPlannerExecutor.journaled(generated.getProblem(), file, 3, 2);
+            assertThat(executor.getExpectedWorldState().getState()).isEqualTo(expected);
+            assertThat(executor.undoMove().getSequence().isEmpty()).isFalse();
+            assertThat(executor.undoMove().getSequence().isEmpty()).isFalse();
+            assertThat(executor.undoMove().getSequence().isEmpty()).isTrue();
+            executor.close();
+            assertThat(Files.size(file)).isEqualTo(size);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRejectsAnotherInterningOrder() throws IOException {
+        GeneratedProblem generated = Domains.blocksworld(6, 3);
+        Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+        Path file = Files.createTempFile("executor", ".journal");
+        Files.delete(file);
+        try {
+            RobotPlannerExecutor executor = RobotPlannerExecutor.journaled(generated.getProblem(), file);
+            executor.executePlan(plan);
+            executor.close();
+            // The same problem in another process, a goal fact interned before grounding shifting every id
+            Problem other = Domains.blocksworld(6, 3).getProblem();
+            other.getSymbolTable().id(generated.getGoals().iterator().next());
+            assertThat(other.getGroundProblem().getActions().size())
+                    .isEqualTo(generated.getProblem().getGroundProblem().getActions().size());
+            try {
+                RobotPlannerExecutor.journaled(other, file);
+                fail("Expected the journal to be rejected");
+            } catch (IOException e) {
+                assertThat(e.getMessage()).contains("another problem");
+            }
+            RobotPlannerExecutor.journaled(Domains.blocksworld(6, 3).getProblem(), file).close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
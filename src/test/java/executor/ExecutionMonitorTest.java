@@ -0,0 +1,109 @@
+package executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import knowledge.*;
+import org.junit.Test;
+import planner.CancellationToken;
+import planner.Plan;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class ExecutionMonitorTest {
+    private final GeneratedProblem generated = Domains.blocksworld(6, 3);
+    private final Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+    private final ExecutionMonitor monitor = new ExecutionMonitor(generated.getProblem(), HeuristicSearchPlanner.greedy());
+
+    @Test
+    public void testExpectedWorld() {
+        RobotPlannerExecutor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        executor.executePlan(steps(0, 2));
+        RepairResult result = monitor.check(executor.getExpectedWorldState(), steps(2, size()), generated.getGoals(),
+                CancellationToken.none());
+        assertThat(result.getOutcome()).isEqualTo(RepairResult.Outcome.VALID);
+        assertThat(result.getPlan().get()).isEqualTo(steps(2, size()));
+    }
+
+    @Test
+    public void testStepsDoneByTheWorldAreSkipped() {
+        RobotPlannerExecutor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        // The world did two more steps than the robot
+        executor.executePlan(steps(0, 4));
+        RepairResult result = monitor.check(executor.getExpectedWorldState(), steps(2, size()), generated.getGoals(),
+                CancellationToken.none());
+        assertThat(result.getOutcome()).isEqualTo(RepairResult.Outcome.REPAIRED);
+        assertThat(result.getPlan().get().getSequence().size()).isLessThanOrEqualTo(size() - 4);
+        assertAchieves(executor.getExpectedWorldState(), result.getPlan().get());
+    }
+
+    @Test
+    public void testUndoneStepIsBridged() {
+        RobotPlannerExecutor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        executor.executePlan(steps(0, 3));
+        // The world undid the last step
+        executor.undoMove();
+        RepairResult result = monitor.check(executor.getExpectedWorldState(), steps(3, size()), generated.getGoals(),
+                CancellationToken.none());
+        assertThat(result.getOutcome()).isEqualTo(RepairResult.Outcome.REPAIRED);
+        assertAchieves(executor.getExpectedWorldState(), result.getPlan().get());
+    }
+
+    @Test
+    public void testCancelledRepairIsStopped() {
+        RobotPlannerExecutor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        executor.executePlan(steps(0, 3));
+        executor.undoMove();
+        CancellationToken cancelled = CancellationToken.create();
+        cancelled.cancel();
+        RepairResult result = monitor.check(executor.getExpectedWorldState(), steps(3, size()), generated.getGoals(),
+                cancelled);
+        assertThat(result.getOutcome()).isEqualTo(RepairResult.Outcome.STOPPED);
+        assertThat(result.getPlan().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testUnreachableWorldIsReplanned() {
+        Problem roads = Problem.builder()
+                .setActions(ImmutableSet.of(Action.parse("move X Y: at X, road X Y -> at Y, not at X")))
+                .setConstraints(ImmutableSet.of())
+                .setTypes(ImmutableSet.of(TypeDeclaration.parse("X, Y: a, b, c, d")))
+                .setInitialState(State.builder().setState(ImmutableSet.of(
+                        Fact.parse("at a"), Fact.parse("road a b"), Fact.parse("road b c"))).build())
+                .build();
+        Set<Fact> goals = ImmutableSet.of(Fact.parse("at c"));
+        Plan remaining = Plan.builder().setSequence(ImmutableList.of(
+                Predicate.parse("move a b"), Predicate.parse("move b c"))).build();
+        // The robot was carried to d, from where only a road the problem was grounded without leads to c
+        State observed = State.builder().setState(ImmutableSet.of(
+                Fact.parse("at d"), Fact.parse("road a b"), Fact.parse("road b c"), Fact.parse("road d c"))).build();
+        RepairResult result = new ExecutionMonitor(roads, HeuristicSearchPlanner.greedy())
+                .check(observed, remaining, goals, CancellationToken.none());
+        assertThat(result.getOutcome()).isEqualTo(RepairResult.Outcome.REPLANNED);
+        assertAchieves(roads, observed, result.getPlan().get(), goals);
+    }
+
+    private void assertAchieves(State observed, Plan repaired) {
+        assertAchieves(generated.getProblem(), observed, repaired, generated.getGoals());
+    }
+
+    private static void assertAchieves(Problem problem, State observed, Plan repaired, Set<Fact> goals) {
+        RobotPlannerExecutor check = RobotPlannerExecutor.withInitialState(problem, observed);
+        check.executePlan(repaired);
+        assertThat(check.getExpectedWorldState().getState().containsAll(goals)).isTrue();
+    }
+
+    private int size() {
+        return plan.getSequence().size();
+    }
+
+    private Plan steps(int from, int to) {
+        List<Predicate> steps = plan.getSequence().subList(from, to);
+        return Plan.builder().setSequence(steps).build();
+    }
+}
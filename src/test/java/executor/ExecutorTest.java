@@ -1,5 +1,93 @@
 package executor;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import knowledge.Action;
+import knowledge.Fact;
+import knowledge.Predicate;
+import knowledge.Problem;
+import knowledge.State;
+import knowledge.TypeDeclaration;
+import org.junit.Test;
+import planner.Plan;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.util.Set;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+import static org.assertj.core.api.StrictAssertions.fail;
+
 public class ExecutorTest {
 
-}
\ No newline at end of file
+    @Test
+    public void testExecuteUndoRedo() {
+        GeneratedProblem generated = Domains.blocksworld(6, 3);
+        Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+        Executor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        Set<Fact> initial = ImmutableSet.copyOf(executor.getExpectedWorldState().getState());
+        assertThat(initial).isEqualTo(generated.getProblem().getInitialState().getState());
+
+        executor.executePlan(plan);
+        State end = executor.getExpectedWorldState();
+        assertThat(end.getState().containsAll(generated.getGoals())).isTrue();
+        Set<Fact> executed = ImmutableSet.copyOf(end.getState());
+
+        for (int i = plan.getSequence().size() - 1; i >= 0; i--) {
+            assertThat(executor.undoMove().getSequence()).isEqualTo(ImmutableList.of(plan.getSequence().get(i)));
+        }
+        assertThat(executor.undoMove().getSequence().isEmpty()).isTrue();
+        assertThat(executor.getExpectedWorldState().getState()).isEqualTo(initial);
+        // Frozen when returned
+        assertThat(ImmutableSet.copyOf(end.getState())).isEqualTo(executed);
+
+        for (Predicate step : plan.getSequence()) {
+            assertThat(executor.redoMove().getSequence()).isEqualTo(ImmutableList.of(step));
+        }
+        assertThat(executor.redoMove().getSequence().isEmpty()).isTrue();
+        assertThat(executor.getExpectedWorldState().getState()).isEqualTo(executed);
+    }
+
+    @Test
+    public void testInitialStateOutsideTheProblem() {
+        Problem problem = Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("pickup X: ontable X, clear X, handempty -> holding X, not ontable X, " +
+                                "not clear X, not handempty"),
+                        Action.parse("putdown X: holding X -> ontable X, clear X, handempty, not holding X")))
+                .setConstraints(ImmutableSet.of())
+                .setTypes(ImmutableSet.of(TypeDeclaration.parse("X: a, b")))
+                .setInitialState(State.builder().setState(ImmutableSet.of(
+                        Fact.parse("ontable a"), Fact.parse("clear a"), Fact.parse("handempty"))).build())
+                .build();
+        // Nothing reachable from the initial state of the problem holds b
+        Executor executor = RobotPlannerExecutor.withInitialState(problem,
+                State.builder().setState(ImmutableSet.of(Fact.parse("holding b"))).build());
+        executor.executePlan(Plan.builder().setSequence(ImmutableList.of(Predicate.parse("putdown b"))).build());
+        assertThat(executor.getExpectedWorldState().getState()).isEqualTo(ImmutableSet.of(
+                Fact.parse("ontable b"), Fact.parse("clear b"), Fact.parse("handempty")));
+    }
+
+    @Test
+    public void testNotApplicable() {
+        GeneratedProblem generated = Domains.blocksworld(4, 1);
+        Plan plan = HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()).get();
+        Executor executor = RobotPlannerExecutor.forProblem(generated.getProblem());
+        executor.executePlan(plan);
+        executor.undoMove();
+        Set<Fact> before = ImmutableSet.copyOf(executor.getExpectedWorldState().getState());
+        Predicate first = plan.getSequence().get(0);
+        try {
+            // The first step again, its preconditions don't hold any more
+            executor.executePlan(Plan.builder()
+                    .setSequence(ImmutableList.of(plan.getSequence().get(plan.getSequence().size() - 1), first))
+                    .build());
+            fail("Expected " + first + " not to be applicable");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains(first.toString());
+        }
+        assertThat(executor.getExpectedWorldState().getState()).isEqualTo(before);
+        assertThat(executor.redoMove().getSequence().isEmpty()).isFalse();
+    }
+}
@@ -0,0 +1,52 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class ActionTest {
+    private final Action stack = Action.parse("stack X Y: holding X, clear Y -> handempty, on X Y, clear X, " +
+            "not holding X, not clear Y");
+    private final Problem problem = Problem.builder()
+            .setActions(ImmutableSet.of(stack))
+            .setConstraints(ImmutableSet.of(
+                    Constraint.parse("on X Y -> not on X Z"),
+                    Constraint.parse("on X Y -> not on Z Y")))
+            .setTypes(ImmutableSet.of(TypeDeclaration.parse("X, Y, Z: s1, s2, s3")))
+            .setInitialState(State.builder().setState(ImmutableSet.of()).build())
+            .build();
+
+    @Test
+    public void testMatch() {
+        Optional<Action> matched = stack.match(Fact.parse("on s1 s2"));
+        assertThat(matched.get()).isEqualTo(Action.parse("stack s1 s2: holding s1, clear s2 -> handempty, on s1 s2, " +
+                "clear s1, not holding s1, not clear s2"));
+        assertThat(stack.match(Fact.parse("ontable s1")).isPresent()).isFalse();
+        assertThat(stack.match(Fact.parse("not on s1 s2")).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testPartialMatchKeepsOtherVariables() {
+        Action pick = Action.parse("pick X Y: at X Y -> holding X, not at X Y");
+        assertThat(pick.match(Fact.parse("holding s1")).get())
+                .isEqualTo(Action.parse("pick s1 Y: at s1 Y -> holding s1, not at s1 Y"));
+    }
+
+    @Test
+    public void testInstantiate() {
+        // Two distinct blocks out of three, stack s1 s1 is not well formed
+        assertThat(stack.instantiate(problem).size()).isEqualTo(6);
+        assertThat(stack.instantiate(problem).contains(stack.match(Fact.parse("on s3 s1")).get())).isTrue();
+    }
+
+    @Test
+    public void testConstraintEffects() {
+        Action ground = stack.match(Fact.parse("on s1 s2")).get();
+        assertThat(ground.constraintEffects(problem)).isEqualTo(ImmutableSet.of(
+                Fact.parse("not on s1 s3"),
+                Fact.parse("not on s3 s2")));
+    }
+}
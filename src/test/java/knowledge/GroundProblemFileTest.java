@@ -0,0 +1,73 @@
+package knowledge;
+
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import org.junit.Test;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+import static org.assertj.core.api.StrictAssertions.fail;
+
+public class GroundProblemFileTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        GeneratedProblem generated = Domains.logistics(6, 1);
+        GroundProblem original = generated.getProblem().getGroundProblem();
+        Path file = Files.createTempFile("problem", ".ground");
+        try {
+            GroundProblemFile.write(original, file);
+            Problem problem = GroundProblemFile.load(file);
+            GroundProblem loaded = problem.getGroundProblem();
+            assertThat(problem).isEqualTo(generated.getProblem());
+            assertThat(loaded.getSymbols().size()).isEqualTo(original.getSymbols().size());
+            for (int id = 0; id < original.getSymbols().size(); id++) {
+                assertThat(loaded.getSymbols().fact(id)).isEqualTo(original.getSymbols().fact(id));
+            }
+            assertThat(Arrays.equals(loaded.getInitialState(), original.getInitialState())).isTrue();
+            assertThat(loaded.getActions().size()).isEqualTo(original.getActions().size());
+            for (GroundAction action : original.getActions()) {
+                GroundAction copy = loaded.getAction(action.getId());
+                assertThat(copy.getPredicate()).isEqualTo(action.getPredicate());
+                assertThat(Arrays.equals(copy.getPreconditions(), action.getPreconditions())).isTrue();
+                assertThat(Arrays.equals(copy.getEffects(), action.getEffects())).isTrue();
+            }
+            assertThat(HeuristicSearchPlanner.greedy().plan(generated.getGoals(), problem))
+                    .isEqualTo(HeuristicSearchPlanner.greedy().plan(generated.getGoals(), generated.getProblem()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAGroundProblem() throws IOException {
+        Path file = Files.createTempFile("problem", ".ground");
+        try {
+            Files.write(file, "types:\n".getBytes("UTF-8"));
+            GroundProblemFile.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("problem", ".ground");
+        try {
+            GroundProblemFile.write(Domains.logistics(2, 1).getProblem().getGroundProblem(), file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+            GroundProblemFile.load(file);
+            fail("Expected the truncated file to be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("is corrupt");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
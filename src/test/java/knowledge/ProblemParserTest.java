@@ -0,0 +1,83 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+import static org.assertj.core.api.StrictAssertions.fail;
+
+public class ProblemParserTest {
+
+    private static final String SUSSMAN = String.join("\n",
+            "# Blocks to rearrange",
+            "types:",
+            "  X, Y, Z: s2, s4, s3, s5",
+            "actions:",
+            "  putdown X: holding X -> ontable X, handempty, clear X, not holding X",
+            "  pickup X: ontable X, clear X, handempty ->",
+            "      holding X, not ontable X, not clear X, not handempty X",
+            "  stack X Y: holding X, clear Y -> handempty, on X Y, clear X,",
+            "      not holding X, not clear Y",
+            "  unstack X: on X Y, clear X, handempty -> holding X, clear Y, not handempty, not clear X, not on X Y",
+            "constraints:",
+            "  holding X -> not holding Y",
+            "  on X Y -> not on X Z",
+            "  on X Y -> not on Z Y",
+            "initial:",
+            "  clear s3, clear s4   # two per line is fine too",
+            "  handempty",
+            "  on s3 s2",
+            "  on s4 s5",
+            "goals:",
+            "  on s3 s5",
+            "");
+
+    @Test
+    public void testSameProblemAsParseMethods() throws IOException {
+        Problem expected = Problem.builder()
+                .setActions(ImmutableSet.of(
+                        Action.parse("putdown X: holding X -> ontable X, handempty, clear X, not holding X"),
+                        Action.parse("pickup X: ontable X, clear X, handempty -> holding X, " +
+                                "not ontable X, not clear X, not handempty X"),
+                        Action.parse("stack X Y: holding X, clear Y -> handempty, on X Y, clear X, " +
+                                "not holding X, not clear Y"),
+                        Action.parse("unstack X: on X Y, clear X, handempty -> holding X, clear Y, " +
+                                "not handempty, not clear X, not on X Y")))
+                .setConstraints(ImmutableSet.of(
+                        Constraint.parse("holding X -> not holding Y"),
+                        Constraint.parse("on X Y -> not on X Z"),
+                        Constraint.parse("on X Y -> not on Z Y")))
+                .setTypes(ImmutableSet.of(TypeDeclaration.parse("X, Y, Z: s2, s4, s3, s5")))
+                .setInitialState(State.builder().setState(ImmutableSet.of(
+                        Fact.parse("clear s3"),
+                        Fact.parse("clear s4"),
+                        Fact.parse("handempty"),
+                        Fact.parse("on s3 s2"),
+                        Fact.parse("on s4 s5"))).build())
+                .build();
+        ProblemFile file = ProblemParser.parse(new StringReader(SUSSMAN));
+        assertThat(file.getProblem()).isEqualTo(expected);
+        assertThat(file.getGoals()).isEqualTo(ImmutableSet.of(Fact.parse("on s3 s5")));
+    }
+
+    @Test
+    public void testErrorPosition() throws IOException {
+        assertError("initial:\n  on s1 s2\n  clear s1,\n\ngoals:\n", 5, 1);
+        assertError("actions:\n  stack X Y: holding X clear Y\n", 2, 31);
+        assertError("on s1 s2\n", 1, 1);
+        assertError("constraints:\n  on X Y : not on X Z\n", 2, 10);
+    }
+
+    private static void assertError(String text, int line, int column) throws IOException {
+        try {
+            ProblemParser.parse(new StringReader(text));
+            fail("Expected a syntax error in " + text);
+        } catch (ProblemSyntaxException e) {
+            assertThat(e.getLine()).isEqualTo(line);
+            assertThat(e.getColumn()).isEqualTo(column);
+        }
+    }
+}
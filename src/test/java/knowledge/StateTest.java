@@ -0,0 +1,51 @@
+package knowledge;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class StateTest {
+    private final Action unstack = Action.parse("unstack X Y: on X Y, clear X, handempty, not holding X -> " +
+            "holding X, clear Y, not on X Y, not clear X, not handempty");
+    private final State state = State.builder().setState(ImmutableSet.of(
+            Fact.parse("on a b"),
+            Fact.parse("clear a"),
+            Fact.parse("handempty"))).build();
+
+    @Test
+    public void testSatisfiesAction() {
+        assertThat(state.satisfiesAction(unstack.match(Fact.parse("holding a")).get())).isFalse();
+        Action ground = Action.parse("unstack a b: on a b, clear a, handempty, not holding a -> " +
+                "holding a, clear b, not on a b, not clear a, not handempty");
+        assertThat(state.satisfiesAction(ground)).isTrue();
+        assertThat(state.preconditionSupportSet(ground)).isEqualTo(ImmutableSet.of(
+                Fact.parse("on a b"),
+                Fact.parse("clear a"),
+                Fact.parse("handempty")));
+        State holding = State.builder().setState(ImmutableSet.<Fact>builder()
+                .addAll(state.getState()).add(Fact.parse("holding a")).build()).build();
+        assertThat(holding.satisfiesAction(ground)).isFalse();
+    }
+
+    @Test
+    public void testToIds() {
+        SymbolTable symbols = new SymbolTable();
+        int on = symbols.id(Fact.parse("on a b"));
+        int clear = symbols.id(Fact.parse("clear a"));
+        int holding = symbols.id(Fact.parse("holding a"));
+        long[] ids = state.toIds(symbols);
+        assertThat(Bits.get(ids, on)).isTrue();
+        assertThat(Bits.get(ids, clear)).isTrue();
+        assertThat(Bits.get(ids, holding)).isFalse();
+        // handempty had no id, so the compact form is computed again once it has one
+        int handempty = symbols.id(Fact.parse("handempty"));
+        assertThat(Bits.get(state.toIds(symbols), handempty)).isTrue();
+        assertThat(state.toIds(symbols)).isSameAs(state.toIds(symbols));
+
+        State view = State.ofIds(symbols, state.toIds(symbols));
+        assertThat(Arrays.equals(view.toIds(symbols), state.toIds(symbols))).isTrue();
+    }
+}
@@ -0,0 +1,32 @@
+package knowledge;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testWidePredicates() {
+        SymbolTable symbols = new SymbolTable();
+        Fact drive = Fact.parse("drive truck1 city1 city2 road3");
+        Fact back = Fact.parse("drive truck1 city2 city1 road3");
+        Fact on = Fact.parse("on a b");
+        int driveId = symbols.id(drive);
+        int onId = symbols.id(on);
+        assertThat(symbols.idIfPresent(back)).isEqualTo(SymbolTable.NOT_PRESENT);
+        int backId = symbols.id(back);
+
+        assertThat(symbols.id(drive)).isEqualTo(driveId);
+        assertThat(backId).isNotEqualTo(driveId);
+        assertThat(symbols.idIfPresent(drive.flip())).isEqualTo(SymbolTable.flip(driveId));
+        assertThat(symbols.fact(driveId)).isEqualTo(drive);
+        assertThat(symbols.fact(backId)).isEqualTo(back);
+        assertThat(symbols.fact(onId)).isEqualTo(on);
+
+        SymbolTable copy = new SymbolTable(symbols.names(), symbols.constants(), symbols.predicates(),
+                symbols.widePredicates());
+        assertThat(copy.fact(SymbolTable.flip(backId))).isEqualTo(back.flip());
+        assertThat(copy.idIfPresent(drive)).isEqualTo(driveId);
+    }
+}
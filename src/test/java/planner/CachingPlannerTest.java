@@ -0,0 +1,108 @@
+package planner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import knowledge.Fact;
+import knowledge.Predicate;
+import knowledge.Problem;
+import knowledge.State;
+import org.junit.Test;
+import planner.graphplan.GraphplanPlanner;
+import planner.heuristic.HeuristicSearchPlanner;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class CachingPlannerTest extends PlannerTest {
+
+    @Override
+    public Planner getPlanner() {
+        return new CachingPlanner(new GraphplanPlanner(15), 100, 1, TimeUnit.HOURS, true);
+    }
+
+    @Test
+    public void testEqualQueriesHit() {
+        CachingPlanner planner = new CachingPlanner(HeuristicSearchPlanner.greedy(), 100, 1, TimeUnit.HOURS, true);
+        GeneratedProblem first = Domains.gripper(2, 1);
+        // Equal to the first one, but another instance
+        GeneratedProblem second = Domains.gripper(2, 1);
+        Optional<Plan> plan = planner.plan(first.getGoals(), first.getProblem());
+        assertThat(new PlanValidator(first.getProblem().getGroundProblem()).achieves(plan.get(), first.getGoals())).isTrue();
+        assertThat(planner.plan(second.getGoals(), second.getProblem())).isEqualTo(plan);
+        assertThat(planner.stats()).isEqualTo(PlanCacheStats.builder()
+                .setHits(1).setMisses(1).setEvictions(0).setInvalidations(0).build());
+    }
+
+    @Test
+    public void testStepsGroundedSeveralWays() {
+        // unstack X grounds once per block under X
+        GeneratedProblem problem = Domains.blocksworld(6, 3);
+        Optional<Plan> plan = HeuristicSearchPlanner.greedy().plan(problem.getGoals(), problem.getProblem());
+        assertThat(new PlanValidator(problem.getProblem().getGroundProblem()).achieves(plan.get(), problem.getGoals())).isTrue();
+    }
+
+    @Test
+    public void testInvalidPlansArePlannedAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        Planner wrong = (goals, problem) -> {
+            calls.incrementAndGet();
+            return Optional.of(Plan.builder().setSequence(ImmutableList.of(Predicate.parse("drop ball0 room0 left"))).build());
+        };
+        CachingPlanner planner = new CachingPlanner(wrong, 100, 1, TimeUnit.HOURS, true);
+        Problem problem = Domains.gripper(1, 1).getProblem();
+        Fact goal = Fact.parse("free left");
+        planner.plan(goal, problem);
+        planner.plan(goal, problem);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(planner.stats().getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeyIsTheProblemFingerprint() {
+        AtomicInteger calls = new AtomicInteger();
+        Planner counting = (goals, problem) -> {
+            calls.incrementAndGet();
+            return Optional.empty();
+        };
+        CachingPlanner planner = new CachingPlanner(counting, 100, 1, TimeUnit.HOURS);
+        Problem problem = Domains.gripper(1, 1).getProblem();
+        // Same problem with its actions in reverse order
+        Problem reordered = Problem.builder()
+                .setActions(ImmutableSet.copyOf(Lists.reverse(ImmutableList.copyOf(problem.getActions()))))
+                .setConstraints(problem.getConstraints())
+                .setTypes(problem.getTypes())
+                .setInitialState(problem.getInitialState())
+                .build();
+        Problem moved = Problem.builder()
+                .setActions(problem.getActions())
+                .setConstraints(problem.getConstraints())
+                .setTypes(problem.getTypes())
+                .setInitialState(State.builder().setState(ImmutableSet.of(Fact.parse("free left"))).build())
+                .build();
+        Fact goal = Fact.parse("free left");
+        planner.plan(goal, problem);
+        planner.plan(goal, reordered);
+        assertThat(calls.get()).isEqualTo(1);
+        planner.plan(goal, moved);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(reordered.getFingerprint()).isEqualTo(problem.getFingerprint());
+        assertThat(moved.getFingerprint()).isNotEqualTo(problem.getFingerprint());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        CachingPlanner planner = new CachingPlanner(new GraphplanPlanner(Integer.MAX_VALUE), 2, 1, TimeUnit.HOURS);
+        for (int seed = 0; seed < 4; seed++) {
+            GeneratedProblem problem = Domains.gripper(seed + 1, 1);
+            planner.plan(problem.getGoals(), problem.getProblem());
+        }
+        assertThat(planner.size()).isEqualTo(2);
+        assertThat(planner.stats().getEvictions()).isGreaterThan(0);
+    }
+}
@@ -1,7 +1,16 @@
 package planner.graphplan;
 
+import com.google.common.collect.ImmutableSet;
+import knowledge.*;
+import org.junit.Test;
+import planner.CancellationToken;
 import planner.Planner;
 import planner.PlannerTest;
+import planner.PlanningResult;
+
+import java.util.Set;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
 
 public class GraphplanPlannerTest extends PlannerTest {
     public static final int MAX_DEPTH = 15;
@@ -10,4 +19,36 @@ public class GraphplanPlannerTest extends PlannerTest {
     public Planner getPlanner() {
         return new GraphplanPlanner(MAX_DEPTH);
     }
+
+    @Test(timeout = 10000)
+    public void testImpossibleStopsWithoutDepthLimit() {
+        Problem problem = Problem.builder()
+                .setActions(
+                        ImmutableSet.of(
+                                Action.parse("pickup X: ontable X, clear X, handempty -> holding X, " +
+                                        "not ontable X, not clear X, not handempty")
+                        ))
+                .setConstraints(ImmutableSet.of())
+                .setTypes(ImmutableSet.of(
+                        TypeDeclaration.parse("X: s3, s5")
+                ))
+                .setInitialState(
+                        State.builder().setState(ImmutableSet.of(
+                                Fact.parse("clear s3"),
+                                Fact.parse("clear s5"),
+                                Fact.parse("handempty"),
+                                Fact.parse("ontable s3"),
+                                Fact.parse("ontable s5")))
+                                .build()
+                ).build();
+        // Both facts are grounded, but with one hand they never hold together
+        Set<Fact> goals = ImmutableSet.of(Fact.parse("holding s3"), Fact.parse("holding s5"));
+        Planner planner = new GraphplanPlanner(Integer.MAX_VALUE);
+        assertThat(problem.getGroundProblem().getSymbols().idIfPresent(Fact.parse("holding s5")))
+                .isNotEqualTo(SymbolTable.NOT_PRESENT);
+        PlanningResult result = planner.plan(goals, problem, CancellationToken.none());
+        assertThat(result.getStatus()).isEqualTo(PlanningResult.Status.UNSOLVABLE);
+        assertThat(result.getDeepestLevel()).isLessThan(MAX_DEPTH);
+        assertThat(planner.plan(goals, problem).isPresent()).isFalse();
+    }
 }
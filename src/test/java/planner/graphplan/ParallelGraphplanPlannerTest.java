@@ -0,0 +1,48 @@
+package planner.graphplan;
+
+import corpus.Domains;
+import knowledge.Bits;
+import knowledge.GroundProblem;
+import org.junit.Test;
+import planner.Planner;
+import planner.PlannerTest;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+/**
+ * Every mutex pass goes through the fork-join pool, plans must be the same as the sequential ones
+ */
+public class ParallelGraphplanPlannerTest extends PlannerTest {
+
+    @Override
+    public Planner getPlanner() {
+        return new GraphplanPlanner(GraphplanPlannerTest.MAX_DEPTH, 0);
+    }
+
+    @Test
+    public void testSameMutexesAsSequential() {
+        assertSameMutexes(Domains.blocksworld(6, 1).getProblem().getGroundProblem(), 8);
+        assertSameMutexes(Domains.logistics(4, 1).getProblem().getGroundProblem(), 8);
+    }
+
+    private static void assertSameMutexes(GroundProblem groundProblem, int levels) {
+        Graph sequential = Graph.fromGroundProblem(groundProblem, Integer.MAX_VALUE);
+        Graph parallel = Graph.fromGroundProblem(groundProblem, 0);
+        sequential.extendTo(levels);
+        parallel.extendTo(levels);
+        int actionCount = groundProblem.getActions().size() + groundProblem.getSymbols().size();
+        for (int level = 0; level <= levels; level++) {
+            GraphplanLevel expected = sequential.getLevels().get(level);
+            GraphplanLevel actual = parallel.getLevels().get(level);
+            for (int action = 0; action < actionCount; action++) {
+                assertThat(Bits.equal(actual.getActionMutexes().row(action), expected.getActionMutexes().row(action)))
+                        .as("action " + action + " at level " + level).isTrue();
+            }
+            for (int fact = 0; fact < groundProblem.getSymbols().size(); fact++) {
+                assertThat(Bits.equal(actual.getPropositionMutexes().row(fact), expected.getPropositionMutexes().row(fact)))
+                        .as("fact " + fact + " at level " + level).isTrue();
+            }
+        }
+        assertThat(parallel.getLevels().get(levels).getActionMutexes().pairCount()).isGreaterThan(0);
+    }
+}
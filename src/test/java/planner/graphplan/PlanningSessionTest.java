@@ -0,0 +1,158 @@
+package planner.graphplan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import knowledge.*;
+import org.junit.Test;
+import planner.CancellationToken;
+import planner.Plan;
+import planner.PlanValidator;
+import planner.PlannerListener;
+import planner.PlanningResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class PlanningSessionTest {
+
+    private static Problem sussman() {
+        return Problem.builder()
+                .setActions(
+                        ImmutableSet.of(
+                                Action.parse("putdown X: holding X -> ontable X, handempty, clear X," +
+                                        "not holding X"),
+                                Action.parse("pickup X: ontable X, clear X, handempty -> holding X, " +
+                                        "not ontable X, not clear X, not handempty X"),
+                                Action.parse("stack X Y: holding X, clear Y -> handempty, on X Y, clear X, " +
+                                        "not holding X, not clear Y"),
+                                Action.parse("unstack X: on X Y, clear X, handempty -> holding X, clear Y, " +
+                                        "not handempty, not clear X, not on X Y")
+                        ))
+                .setConstraints(
+                        ImmutableSet.of(
+                                Constraint.parse("holding X -> not holding Y"),
+                                Constraint.parse("on X Y -> not on X Z"),
+                                Constraint.parse("on X Y -> not on Z Y")))
+                .setTypes(ImmutableSet.of(
+                        TypeDeclaration.parse("X, Y, Z: s2, s4, s3, s5")
+                ))
+                .setInitialState(
+                        State.builder().setState(ImmutableSet.of(
+                                Fact.parse("clear s3"),
+                                Fact.parse("clear s4"),
+                                Fact.parse("handempty"),
+                                Fact.parse("on s3 s2"),
+                                Fact.parse("on s4 s5")))
+                                .build()
+                ).build();
+    }
+
+    @Test
+    public void testGoalsShareTheGraph() {
+        PlanningSession session = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH);
+        Optional<Plan> longPlan = session.plan(Fact.parse("on s3 s5"));
+        Optional<Plan> shortPlan = session.plan(Fact.parse("holding s4"));
+        assertThat(longPlan.isPresent()).isTrue();
+        assertThat(longPlan.get().getSequence().size()).isEqualTo(4);
+        assertThat(shortPlan.get()).isEqualTo(Plan.builder().setSequence(ImmutableList.of(
+                Predicate.parse("unstack s4"))).build());
+        assertThat(session.plan(Fact.parse("on s3 s5"))).isEqualTo(longPlan);
+    }
+
+    @Test
+    public void testConjunctiveGoal() {
+        PlanningSession session = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH);
+        Optional<Plan> plan = session.plan(ImmutableSet.of(Fact.parse("ontable s4"), Fact.parse("clear s2")));
+        assertThat(plan.isPresent()).isTrue();
+        assertThat(plan.get().getSequence().size()).isEqualTo(3);
+        assertThat(session.plan(ImmutableSet.of(Fact.parse("holding s4"), Fact.parse("holding s3"))).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testResultStatus() {
+        PlanningSession session = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH);
+        PlanningResult solved = session.plan(ImmutableSet.of(Fact.parse("on s3 s5")), CancellationToken.none());
+        assertThat(solved.getStatus()).isEqualTo(PlanningResult.Status.SOLVED);
+        assertThat(solved.getDeepestLevel()).isEqualTo(4);
+        assertThat(session.plan(ImmutableSet.of(Fact.parse("holding s4"), Fact.parse("holding s3")),
+                CancellationToken.none()).getStatus()).isEqualTo(PlanningResult.Status.UNSOLVABLE);
+        assertThat(PlanningSession.open(sussman(), 3).plan(ImmutableSet.of(Fact.parse("on s3 s5")),
+                CancellationToken.none()).getStatus()).isEqualTo(PlanningResult.Status.EXHAUSTED);
+        CancellationToken cancelled = CancellationToken.create();
+        cancelled.cancel();
+        PlanningResult stopped = session.plan(ImmutableSet.of(Fact.parse("on s3 s5")), cancelled);
+        assertThat(stopped.getStatus()).isEqualTo(PlanningResult.Status.CANCELLED);
+        assertThat(stopped.getPlan().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testDeadline() {
+        GeneratedProblem problem = Domains.blocksworld(40, 1);
+        PlanningResult result = PlanningSession.open(problem.getProblem(), Integer.MAX_VALUE)
+                .plan(problem.getGoals(), CancellationToken.withTimeout(100, TimeUnit.MILLISECONDS));
+        assertThat(result.getStatus()).isEqualTo(PlanningResult.Status.TIMED_OUT);
+        assertThat(result.getElapsedNanos()).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testListener() {
+        List<String> calls = new ArrayList<>();
+        PlannerListener listener = new PlannerListener() {
+            @Override
+            public void levelExtended(int level, int actions, int propositions, long duration) {
+                calls.add("extended " + level);
+            }
+
+            @Override
+            public void planExtracted(int level, boolean found, long backtracks, long duration) {
+                calls.add((found ? "found " : "searched ") + level);
+            }
+        };
+        PlanningSession session = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH, 0, listener);
+        session.plan(Fact.parse("holding s3"));
+        session.plan(Fact.parse("holding s4"));
+        assertThat(calls).isEqualTo(ImmutableList.of("extended 1", "found 1", "found 1"));
+    }
+
+    @Test
+    public void testConcurrentGoals() throws Exception {
+        List<Fact> goals = ImmutableList.of(Fact.parse("on s3 s5"), Fact.parse("holding s4"),
+                Fact.parse("ontable s3"), Fact.parse("on s4 s3"));
+        PlanningSession sequential = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH);
+        PlanningSession shared = PlanningSession.open(sussman(), GraphplanPlannerTest.MAX_DEPTH);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Optional<Plan>>> plans = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                for (Fact goal : goals) {
+                    plans.add(executor.submit(() -> shared.plan(goal)));
+                }
+            }
+            for (int i = 0; i < plans.size(); i++) {
+                assertThat(plans.get(i).get()).isEqualTo(sequential.plan(goals.get(i % goals.size())));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMutexesAreSound() {
+        // Two drives of the same truck in a row are not mutex: needing a fact only conflicts with negating it
+        GeneratedProblem problem = Domains.logistics(4, 1);
+        PlanningResult result = PlanningSession.open(problem.getProblem(), Integer.MAX_VALUE)
+                .plan(problem.getGoals(), CancellationToken.none());
+        assertThat(result.getStatus()).isEqualTo(PlanningResult.Status.SOLVED);
+        assertThat(new PlanValidator(problem.getProblem().getGroundProblem())
+                .achieves(result.getPlan().get(), problem.getGoals())).isTrue();
+    }
+}
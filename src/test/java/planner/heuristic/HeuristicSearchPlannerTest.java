@@ -0,0 +1,12 @@
+package planner.heuristic;
+
+import planner.Planner;
+import planner.PlannerTest;
+
+public class HeuristicSearchPlannerTest extends PlannerTest {
+
+    @Override
+    public Planner getPlanner() {
+        return HeuristicSearchPlanner.greedy();
+    }
+}
@@ -0,0 +1,47 @@
+package planner.jfr;
+
+import corpus.Domains;
+import corpus.GeneratedProblem;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import planner.graphplan.GraphplanPlanner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.StrictAssertions.assertThat;
+
+public class JfrPlannerListenerTest {
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        GeneratedProblem problem = Domains.blocksworld(4, 1);
+        Path file = Files.createTempFile("planner", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : new String[]{"planner.Grounding", "planner.LevelExtension", "planner.Mutexes", "planner.Extraction"}) {
+                recording.enable(event);
+            }
+            recording.start();
+            new GraphplanPlanner(Integer.MAX_VALUE, Integer.MAX_VALUE, new JfrPlannerListener())
+                    .plan(problem.getGoals(), problem.getProblem());
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Set<String> names = new HashSet<>();
+            for (RecordedEvent event : events) {
+                names.add(event.getEventType().getName());
+            }
+            assertThat(names.contains("planner.Grounding")).isTrue();
+            assertThat(names.contains("planner.LevelExtension")).isTrue();
+            assertThat(names.contains("planner.Mutexes")).isTrue();
+            assertThat(names.contains("planner.Extraction")).isTrue();
+        } finally {
+            Files.delete(file);
+        }
+    }
+}